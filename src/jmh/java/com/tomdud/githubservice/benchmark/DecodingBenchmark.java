@@ -0,0 +1,71 @@
+package com.tomdud.githubservice.benchmark;
+
+import com.tomdud.githubservice.codec.GithubPayloadDecoder;
+import com.tomdud.githubservice.dto.BranchDTO;
+import com.tomdud.githubservice.dto.RepositoryDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decoding of recorded {@code /users/{username}/repos} and {@code /branches} payloads, comparing the generic Jackson
+ * decoder WebClient used before with {@link GithubPayloadDecoder}. Run with the gc profiler to compare allocation.
+ */
+@State(Scope.Benchmark)
+public class DecodingBenchmark {
+
+    private static final ResolvableType REPOSITORY_TYPE = ResolvableType.forClass(RepositoryDTO.class);
+    private static final ResolvableType BRANCH_TYPE = ResolvableType.forClass(BranchDTO.class);
+
+    @Param({"10", "100"})
+    public int elements;
+
+    private final Jackson2JsonDecoder jacksonDecoder = new Jackson2JsonDecoder();
+    private final GithubPayloadDecoder githubPayloadDecoder = new GithubPayloadDecoder();
+
+    private byte[] repositoriesPayload;
+    private byte[] branchesPayload;
+
+    @Setup
+    public void setup() {
+        repositoriesPayload = GithubPayloads.repositories(elements);
+        branchesPayload = GithubPayloads.branches(elements);
+    }
+
+    @Benchmark
+    public List<Object> repositoriesWithJacksonDecoder() {
+        return jacksonDecoder.decode(GithubPayloads.chunked(repositoriesPayload), REPOSITORY_TYPE, MediaType.APPLICATION_JSON, Collections.emptyMap())
+                .collectList()
+                .block();
+    }
+
+    @Benchmark
+    public List<Object> repositoriesWithGithubPayloadDecoder() {
+        return githubPayloadDecoder.decode(GithubPayloads.chunked(repositoriesPayload), REPOSITORY_TYPE, MediaType.APPLICATION_JSON, Collections.emptyMap())
+                .collectList()
+                .block();
+    }
+
+    @Benchmark
+    public List<Object> branchesWithJacksonDecoder() {
+        return jacksonDecoder.decode(GithubPayloads.chunked(branchesPayload), BRANCH_TYPE, MediaType.APPLICATION_JSON, Collections.emptyMap())
+                .collectList()
+                .block();
+    }
+
+    @Benchmark
+    public List<Object> branchesWithGithubPayloadDecoder() {
+        return githubPayloadDecoder.decode(GithubPayloads.chunked(branchesPayload), BRANCH_TYPE, MediaType.APPLICATION_JSON, Collections.emptyMap())
+                .collectList()
+                .block();
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.tomdud.githubservice.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tomdud.githubservice.dto.RepositoryDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Encoding of the controller output: the JSON array written by the servlet runtime and the JSON array and NDJSON
+ * stream written by the WebFlux encoder.
+ */
+@State(Scope.Benchmark)
+public class EncodingBenchmark {
+
+    private static final ResolvableType REPOSITORY_TYPE = ResolvableType.forClass(RepositoryDTO.class);
+
+    @Param({"10", "100"})
+    public int repositories;
+
+    @Param({"4"})
+    public int branchesPerRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Jackson2JsonEncoder jacksonEncoder = new Jackson2JsonEncoder();
+
+    private List<RepositoryDTO> assembledRepositories;
+
+    @Setup
+    public void setup() {
+        assembledRepositories = GithubPayloads.assembledRepositories(repositories, branchesPerRepository);
+    }
+
+    @Benchmark
+    public byte[] servletJsonArray() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(assembledRepositories);
+    }
+
+    @Benchmark
+    public int webFluxJsonArray() {
+        return encode(MediaType.APPLICATION_JSON);
+    }
+
+    @Benchmark
+    public int webFluxNdjson() {
+        return encode(MediaType.APPLICATION_NDJSON);
+    }
+
+    private int encode(MimeType mimeType) {
+        return DataBufferUtils.join(jacksonEncoder.encode(
+                        Flux.fromIterable(assembledRepositories), DefaultDataBufferFactory.sharedInstance, REPOSITORY_TYPE, mimeType, Collections.emptyMap()))
+                .map(dataBuffer -> {
+                    int size = dataBuffer.readableByteCount();
+                    DataBufferUtils.release(dataBuffer);
+                    return size;
+                })
+                .block();
+    }
+
+}
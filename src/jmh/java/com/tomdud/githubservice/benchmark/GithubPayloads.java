@@ -0,0 +1,95 @@
+package com.tomdud.githubservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.tomdud.githubservice.dto.BranchDTO;
+import com.tomdud.githubservice.dto.RepositoryDTO;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Payloads of realistic size for the benchmarks, generated from the GitHub responses recorded for the tests.
+ */
+final class GithubPayloads {
+
+    static final String OWNER = "tomdud-developer";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int NETWORK_CHUNK_SIZE = 8192;
+
+    private GithubPayloads() {
+    }
+
+    static byte[] repositories(int count) {
+        ObjectNode template = (ObjectNode) readRecorded("__files/mocked-github-response-user-repos-success.json").get(0);
+        ArrayNode repositories = OBJECT_MAPPER.createArrayNode();
+        for (int i = 0; i < count; i++) {
+            repositories.add(template.deepCopy().put("name", "repository-" + i).put("fork", i % 5 == 4));
+        }
+        return write(repositories);
+    }
+
+    static byte[] branches(int count) {
+        ObjectNode template = (ObjectNode) readRecorded("__files/mocked-github-response-repo-branch-success.json").get(0);
+        ArrayNode branches = OBJECT_MAPPER.createArrayNode();
+        for (int i = 0; i < count; i++) {
+            branches.add(template.deepCopy().put("name", "branch-" + i));
+        }
+        return write(branches);
+    }
+
+    static List<RepositoryDTO> assembledRepositories(int count, int branchesPerRepository) {
+        List<RepositoryDTO> repositories = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            RepositoryDTO repository = new RepositoryDTO();
+            repository.setRepositoryName("repository-" + i);
+            repository.setRepositoryOwner(OWNER);
+
+            List<BranchDTO> branches = new ArrayList<>(branchesPerRepository);
+            for (int j = 0; j < branchesPerRepository; j++) {
+                BranchDTO branch = new BranchDTO();
+                branch.setName("branch-" + j);
+                branch.setLastCommitSha("0333421b4bca211050b5cc3ec5b226ba0fd965d6");
+                branches.add(branch);
+            }
+            repository.setBranches(branches);
+            repositories.add(repository);
+        }
+        return repositories;
+    }
+
+    // splits the payload into buffers of the size a network read would deliver
+    static Flux<DataBuffer> chunked(byte[] payload) {
+        return Flux.range(0, (payload.length + NETWORK_CHUNK_SIZE - 1) / NETWORK_CHUNK_SIZE)
+                .<DataBuffer>map(chunk -> {
+                    int offset = chunk * NETWORK_CHUNK_SIZE;
+                    return DefaultDataBufferFactory.sharedInstance.wrap(
+                            Arrays.copyOfRange(payload, offset, Math.min(payload.length, offset + NETWORK_CHUNK_SIZE)));
+                });
+    }
+
+    private static ArrayNode readRecorded(String resource) {
+        try (InputStream inputStream = GithubPayloads.class.getClassLoader().getResourceAsStream(resource)) {
+            return (ArrayNode) OBJECT_MAPPER.readTree(inputStream);
+        } catch (IOException ioException) {
+            throw new UncheckedIOException("Problem with loading recorded GitHub payload " + resource, ioException);
+        }
+    }
+
+    private static byte[] write(ArrayNode payload) {
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(payload);
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+    }
+}
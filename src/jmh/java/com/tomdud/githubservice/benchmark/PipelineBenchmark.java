@@ -0,0 +1,107 @@
+package com.tomdud.githubservice.benchmark;
+
+import com.tomdud.githubservice.configuration.GithubWebClientConfiguration;
+import com.tomdud.githubservice.dto.RepositoryDTO;
+import com.tomdud.githubservice.metrics.GithubMetrics;
+import com.tomdud.githubservice.service.GithubBranchSnapshotCache;
+import com.tomdud.githubservice.service.GithubCircuitBreaker;
+import com.tomdud.githubservice.service.GithubEtagCache;
+import com.tomdud.githubservice.service.GithubFanOutScheduler;
+import com.tomdud.githubservice.service.GithubHedgingPolicy;
+import com.tomdud.githubservice.service.GithubRestApiClient;
+import com.tomdud.githubservice.service.GithubRetryPolicy;
+import com.tomdud.githubservice.service.GithubTokenPool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full {@link GithubRestApiClient#getUserRepositories(String)} pipeline (pagination, branch fan-out, decoding) against
+ * an in-process MockWebServer answering every call after {@code latencyMs}.
+ */
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+
+    private static final String USERNAME = "jmh-user";
+
+    @Param({"10", "100"})
+    public int repositories;
+
+    @Param({"0", "20"})
+    public int latencyMs;
+
+    private MockWebServer upstream;
+    private GithubRestApiClient githubRestApiClient;
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] repositoriesPayload = GithubPayloads.repositories(repositories);
+        byte[] branchesPayload = GithubPayloads.branches(4);
+
+        upstream = new MockWebServer();
+        upstream.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String path = request.getPath() != null ? request.getPath() : "";
+                byte[] payload = path.startsWith("/users/") ? repositoriesPayload : branchesPayload;
+                return new MockResponse()
+                        .setHeader("Content-Type", "application/json")
+                        .setHeadersDelay(latencyMs, TimeUnit.MILLISECONDS)
+                        .setBody(new Buffer().write(payload));
+            }
+        });
+        upstream.start();
+
+        GithubFanOutScheduler fanOutScheduler = new GithubFanOutScheduler(8, 4, 64, 200, Duration.ofSeconds(2));
+        GithubWebClientConfiguration configuration = new GithubWebClientConfiguration();
+        String url = upstream.url("/").toString().replaceAll("/$", "");
+        WebClient webClient = configuration.githubWebClient(
+                fanOutScheduler,
+                new GithubEtagCache(0),
+                // the upstream never fails, hedges would only add calls
+                new GithubCircuitBreaker(false, 50, 20, 50, Duration.ofSeconds(30)),
+                new GithubRetryPolicy(1, Duration.ofMillis(200), Duration.ofSeconds(5)),
+                new GithubHedgingPolicy(false, 95, Duration.ofMillis(100), 0.1),
+                new GithubTokenPool("", new String[0]),
+                new GithubMetrics(new SimpleMeterRegistry()),
+                configuration.githubHttpClient(url, new HttpProtocol[]{HttpProtocol.HTTP11}, false,
+                        Duration.ofSeconds(5), Duration.ofSeconds(30), 500, 100, -1, Duration.ofSeconds(45),
+                        Duration.ofSeconds(30), Duration.ofMinutes(5), Duration.ZERO),
+                url,
+                "2022-11-28"
+        );
+        githubRestApiClient = new GithubRestApiClient(
+                webClient,
+                fanOutScheduler,
+                // every invocation should fetch the branches
+                new GithubBranchSnapshotCache(false, Duration.ZERO, 0)
+        );
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        upstream.shutdown();
+    }
+
+    @Benchmark
+    public List<RepositoryDTO> getUserRepositories() {
+        return githubRestApiClient.getUserRepositories(USERNAME).collectList().block();
+    }
+
+}
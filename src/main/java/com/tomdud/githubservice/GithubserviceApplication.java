@@ -1,9 +1,12 @@
 package com.tomdud.githubservice;
 
+import com.tomdud.githubservice.configuration.GithubRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(GithubRuntimeHints.class)
 public class GithubserviceApplication {
 
     public static void main(String[] args) {
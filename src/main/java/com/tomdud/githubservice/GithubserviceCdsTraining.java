@@ -0,0 +1,18 @@
+package com.tomdud.githubservice;
+
+import org.springframework.boot.SpringApplication;
+
+/**
+ * Training run of the CDS archive, started by the {@code cdsArchive} task of the {@code aot} build profile. Starts the
+ * application and shuts it down once it is ready, the classes loaded until then are archived when the JVM exits.
+ */
+public class GithubserviceCdsTraining {
+
+    public static void main(String[] args) {
+        SpringApplication application = new SpringApplication(GithubserviceApplication.class);
+        // the AOT initializer is looked up by the main application class, which is not this one
+        application.setMainApplicationClass(GithubserviceApplication.class);
+        System.exit(SpringApplication.exit(application.run(args)));
+    }
+
+}
@@ -0,0 +1,202 @@
+package com.tomdud.githubservice.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.tomdud.githubservice.dto.BranchDTO;
+import com.tomdud.githubservice.dto.RepositoryDTO;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractDecoder;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming decoder for the GitHub {@code /users/{username}/repos} and {@code /repos/{owner}/{repo}/branches}
+ * payloads.
+ * <p>
+ * The response is read as a non-blocking token stream straight from the network buffers, and only {@code name},
+ * {@code fork}, {@code pushed_at}, {@code owner.login} and {@code commit.sha} are turned into strings; the other ~100
+ * fields of every repository are skipped token by token without being bound to maps or buffered, which the generic
+ * Jackson decoder has to do for every array element.
+ */
+public class GithubPayloadDecoder extends AbstractDecoder<Object> {
+
+    private static final MimeType[] SUPPORTED_MIME_TYPES = {
+            new MimeType("application", "json"),
+            new MimeType("application", "vnd.github+json"),
+            new MimeType("application", "*+json")
+    };
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public GithubPayloadDecoder() {
+        super(SUPPORTED_MIME_TYPES);
+    }
+
+    @Override
+    public boolean canDecode(ResolvableType elementType, MimeType mimeType) {
+        Class<?> elementClass = elementType.toClass();
+        return (elementClass == RepositoryDTO.class || elementClass == BranchDTO.class) && super.canDecode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<Object> decode(Publisher<DataBuffer> inputStream, ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        boolean repositories = elementType.toClass() == RepositoryDTO.class;
+
+        return Flux.defer(() -> {
+            PayloadParser payloadParser = new PayloadParser(createParser(), repositories);
+            return Flux.from(inputStream)
+                    .concatMapIterable(payloadParser::feed)
+                    .concatWith(Mono.fromCallable(payloadParser::endOfInput).flatMapIterable(elements -> elements))
+                    .doFinally(signalType -> payloadParser.close());
+        });
+    }
+
+    @Override
+    public Mono<Object> decodeToMono(Publisher<DataBuffer> inputStream, ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        return decode(inputStream, elementType, mimeType, hints).next();
+    }
+
+    private JsonParser createParser() {
+        try {
+            return jsonFactory.createNonBlockingByteBufferParser();
+        } catch (IOException ioException) {
+            throw new DecodingException("Could not create non-blocking JSON parser", ioException);
+        }
+    }
+
+    /**
+     * Per subscription state machine following the nesting depth of the token stream: depth 1 is the top-level
+     * array, depth 2 a repository or branch object and depth 3 its nested {@code owner}/{@code commit} object.
+     */
+    private static final class PayloadParser {
+
+        private final JsonParser parser;
+        private final boolean repositories;
+
+        private int depth;
+        private int elementDepth = 2;
+        private String parentField;
+        private RepositoryDTO repository;
+        private BranchDTO branch;
+
+        private PayloadParser(JsonParser parser, boolean repositories) {
+            this.parser = parser;
+            this.repositories = repositories;
+        }
+
+        private List<Object> feed(DataBuffer dataBuffer) {
+            // the buffers are parsed in place, every token is read before the buffer is released
+            try (DataBuffer.ByteBufferIterator byteBuffers = dataBuffer.readableByteBuffers()) {
+                List<Object> elements = new ArrayList<>();
+                while (byteBuffers.hasNext()) {
+                    ((ByteBufferFeeder) parser.getNonBlockingInputFeeder()).feedInput(byteBuffers.next());
+                    elements.addAll(parseAvailableTokens());
+                }
+                return elements;
+            } catch (IOException ioException) {
+                throw new DecodingException("JSON decoding error: " + ioException.getMessage(), ioException);
+            } finally {
+                DataBufferUtils.release(dataBuffer);
+            }
+        }
+
+        private List<Object> endOfInput() {
+            try {
+                ((ByteBufferFeeder) parser.getNonBlockingInputFeeder()).endOfInput();
+                return parseAvailableTokens();
+            } catch (IOException ioException) {
+                throw new DecodingException("JSON decoding error: " + ioException.getMessage(), ioException);
+            }
+        }
+
+        private List<Object> parseAvailableTokens() throws IOException {
+            List<Object> elements = new ArrayList<>();
+            JsonToken token;
+
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                switch (token) {
+                    case START_ARRAY -> depth++;
+                    case START_OBJECT -> {
+                        depth++;
+                        if (depth == 1) {
+                            // a single object instead of an array, decode it as the only element
+                            elementDepth = 1;
+                        }
+                        if (depth == elementDepth) {
+                            startElement();
+                        } else if (depth == elementDepth + 1) {
+                            parentField = parser.currentName();
+                        }
+                    }
+                    case END_OBJECT -> {
+                        if (depth == elementDepth) {
+                            elements.add(repositories ? repository : branch);
+                        } else if (depth == elementDepth + 1) {
+                            parentField = null;
+                        }
+                        depth--;
+                    }
+                    case END_ARRAY -> depth--;
+                    case FIELD_NAME -> {
+                        // the name is read through currentName() once its value arrives
+                    }
+                    default -> onValue(token);
+                }
+            }
+            return elements;
+        }
+
+        private void startElement() {
+            if (repositories) {
+                repository = new RepositoryDTO();
+            } else {
+                branch = new BranchDTO();
+            }
+        }
+
+        private void onValue(JsonToken token) throws IOException {
+            String field = parser.currentName();
+            if (field == null) {
+                return;
+            }
+
+            if (depth == elementDepth) {
+                if (repositories && field.equals("name") && token == JsonToken.VALUE_STRING) {
+                    repository.setRepositoryName(parser.getText());
+                } else if (repositories && field.equals("fork") && token.isBoolean()) {
+                    repository.setFork(token == JsonToken.VALUE_TRUE);
+                } else if (repositories && field.equals("pushed_at") && token == JsonToken.VALUE_STRING) {
+                    repository.setPushedAt(parser.getText());
+                } else if (!repositories && field.equals("name") && token == JsonToken.VALUE_STRING) {
+                    branch.setName(parser.getText());
+                }
+            } else if (depth == elementDepth + 1 && token == JsonToken.VALUE_STRING) {
+                if (repositories && "owner".equals(parentField) && field.equals("login")) {
+                    repository.setRepositoryOwner(parser.getText());
+                } else if (!repositories && "commit".equals(parentField) && field.equals("sha")) {
+                    branch.setLastCommitSha(parser.getText());
+                }
+            }
+        }
+
+        private void close() {
+            try {
+                parser.close();
+            } catch (IOException ignored) {
+                // nothing left to release, the fed buffers are released by feed()
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.tomdud.githubservice.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.tomdud.githubservice.dto.RepositoryDTO;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Encodes a repository list into the JSON array written by the controller, together with a strong {@code ETag} of
+ * the exact bytes. Encoded responses are cached next to the list they were encoded from and written as they are, so
+ * repeated requests cost neither serialization nor new buffers.
+ * <p>
+ * Streaming responses are encoded per repository instead, every {@link RawValue} is written as it is by the NDJSON and
+ * Server-Sent Events writers, which still add the line or event framing around it.
+ */
+@Component
+public class GithubResponseEncoder {
+
+    private final ObjectMapper objectMapper;
+
+    public GithubResponseEncoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public EncodedResponse encodeJsonArray(List<RepositoryDTO> repositories) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(repositories);
+            return new EncodedResponse(body, etag(body));
+        } catch (JsonProcessingException jsonProcessingException) {
+            throw new EncodingException("Could not encode repositories", jsonProcessingException);
+        }
+    }
+
+    public List<RawValue> encodeJsonValues(List<RepositoryDTO> repositories) {
+        List<RawValue> values = new ArrayList<>(repositories.size());
+        try {
+            for (RepositoryDTO repository : repositories) {
+                SerializedString json = new SerializedString(objectMapper.writeValueAsString(repository));
+                // encodes the UTF-8 bytes once, every response writes them as they are
+                json.asUnquotedUTF8();
+                values.add(new RawValue(json));
+            }
+        } catch (JsonProcessingException jsonProcessingException) {
+            throw new EncodingException("Could not encode repositories", jsonProcessingException);
+        }
+        return values;
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException noSuchAlgorithmException) {
+            throw new IllegalStateException("SHA-256 is not available", noSuchAlgorithmException);
+        }
+    }
+
+    /**
+     * @param body the encoded response, shared by every request answered with it and never modified
+     * @param etag strong entity tag of {@code body}, quoted
+     */
+    public record EncodedResponse(byte[] body, String etag) {
+
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                // If-None-Match uses the weak comparison
+                if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
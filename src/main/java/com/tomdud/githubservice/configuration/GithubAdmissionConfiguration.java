@@ -0,0 +1,71 @@
+package com.tomdud.githubservice.configuration;
+
+import com.tomdud.githubservice.service.GithubAdmissionControl;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.WebFilter;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+/**
+ * Stores the client every request is admitted for as the {@link GithubAdmissionControl#CLIENT_ATTRIBUTE} request
+ * attribute, on whichever runtime the service runs. Behind a proxy the remote address is the proxy's unless
+ * {@code server.forward-headers-strategy} is set.
+ */
+@Configuration
+public class GithubAdmissionConfiguration {
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class Servlet {
+
+        @Bean
+        public OncePerRequestFilter githubAdmissionClientFilter(
+                GithubAdmissionControl admissionControl,
+                @Value("${webclient.api.github.admission.client-header:X-Api-Key}") String clientHeader
+        ) {
+            return new OncePerRequestFilter() {
+                @Override
+                protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                        throws ServletException, IOException {
+                    request.setAttribute(
+                            GithubAdmissionControl.CLIENT_ATTRIBUTE,
+                            admissionControl.clientOf(request.getHeader(clientHeader), request.getRemoteAddr())
+                    );
+                    filterChain.doFilter(request, response);
+                }
+            };
+        }
+    }
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    static class Reactive {
+
+        @Bean
+        public WebFilter githubAdmissionClientFilter(
+                GithubAdmissionControl admissionControl,
+                @Value("${webclient.api.github.admission.client-header:X-Api-Key}") String clientHeader
+        ) {
+            return (exchange, chain) -> {
+                InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+                exchange.getAttributes().put(
+                        GithubAdmissionControl.CLIENT_ATTRIBUTE,
+                        admissionControl.clientOf(
+                                exchange.getRequest().getHeaders().getFirst(clientHeader),
+                                remoteAddress != null ? remoteAddress.getHostString() : null
+                        )
+                );
+                return chain.filter(exchange);
+            };
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.tomdud.githubservice.configuration;
+
+import com.tomdud.githubservice.dto.BranchDTO;
+import com.tomdud.githubservice.dto.ErrorDTO;
+import com.tomdud.githubservice.dto.RepositoryDTO;
+import com.tomdud.githubservice.dto.UserRepositoriesDTO;
+import com.tomdud.githubservice.handler.GithubExceptionHandler;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.ExecutableMode;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+/**
+ * Reflection a native image cannot find on its own. GitHub payloads are bound by {@code GithubPayloadDecoder} and
+ * WebClient, which AOT processing does not see, and the nested {@code owner} and {@code commit} objects are unpacked by
+ * private {@code @JsonProperty} methods Jackson calls reflectively.
+ */
+public class GithubRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                RepositoryDTO.class, BranchDTO.class, UserRepositoriesDTO.class, ErrorDTO.class);
+        hints.reflection().registerMethod(privateMethod(RepositoryDTO.class, "unpackNestedOwner"), ExecutableMode.INVOKE);
+        hints.reflection().registerMethod(privateMethod(BranchDTO.class, "unpackNestedCommit"), ExecutableMode.INVOKE);
+
+        hints.reflection().registerType(GithubExceptionHandler.class,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+    }
+
+    private static Method privateMethod(Class<?> type, String name) {
+        Method method = ReflectionUtils.findMethod(type, name, Map.class);
+        if (method == null) {
+            throw new IllegalStateException("Missing " + type.getSimpleName() + "::" + name + ", update the native hints");
+        }
+        return method;
+    }
+}
@@ -0,0 +1,124 @@
+package com.tomdud.githubservice.configuration;
+
+import com.tomdud.githubservice.codec.GithubPayloadDecoder;
+import com.tomdud.githubservice.metrics.GithubMetrics;
+import com.tomdud.githubservice.service.GithubCircuitBreaker;
+import com.tomdud.githubservice.service.GithubEtagCache;
+import com.tomdud.githubservice.service.GithubFanOutScheduler;
+import com.tomdud.githubservice.service.GithubHedgingPolicy;
+import com.tomdud.githubservice.service.GithubRetryPolicy;
+import com.tomdud.githubservice.service.GithubTokenPool;
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.Http2AllocationStrategy;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+@Configuration
+public class GithubWebClientConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(GithubWebClientConfiguration.class);
+
+    @Bean
+    public WebClient githubWebClient(
+            GithubFanOutScheduler fanOutScheduler,
+            GithubEtagCache etagCache,
+            GithubCircuitBreaker circuitBreaker,
+            GithubRetryPolicy retryPolicy,
+            GithubHedgingPolicy hedgingPolicy,
+            GithubTokenPool tokenPool,
+            GithubMetrics githubMetrics,
+            HttpClient githubHttpClient,
+            @Value("${webclient.api.github.url}") String url,
+            @Value("${webclient.api.github.version}") String version
+    ) {
+        WebClient.Builder webClientBuilder = WebClient.builder()
+                .baseUrl(url)
+                .defaultHeader("X-GitHub-Api-Version", version)
+                .defaultHeader("Accept", "application/vnd.github+json")
+                .codecs(configurer -> configurer.customCodecs().registerWithDefaultConfig(new GithubPayloadDecoder()))
+                .filter(etagCache.conditionalRequestFilter())
+                .filter(fanOutScheduler.rateLimitObserver())
+                // the breaker sees the outcome after retries, every retry and hedge picks its own token
+                .filter(circuitBreaker.circuitBreakerFilter())
+                .filter(retryPolicy.retryFilter())
+                .filter(hedgingPolicy.hedgingFilter())
+                .filter(tokenPool.authorizationFilter())
+                .filter(githubMetrics.upstreamMetricsFilter())
+                .clientConnector(new ReactorClientHttpConnector(githubHttpClient));
+
+        if (!tokenPool.isEmpty()) {
+            log.info("GithubWebClientConfiguration::githubWebClient token mode enabled with {} token(s)", tokenPool.size());
+        } else {
+            log.info("GithubWebClientConfiguration::githubWebClient token mode disabled");
+        }
+
+        return webClientBuilder.build();
+    }
+
+    /**
+     * Transport of all GitHub calls. HTTP/2 is negotiated through ALPN when the upstream is reached over TLS and
+     * multiplexes the branch fan-out over a few connections, cleartext upstreams are called over HTTP/1.1 unless
+     * {@code H2C} is configured.
+     */
+    @Bean
+    public HttpClient githubHttpClient(
+            @Value("${webclient.api.github.url}") String url,
+            @Value("${webclient.api.github.transport.protocols:HTTP11,H2}") HttpProtocol[] protocols,
+            @Value("${webclient.api.github.transport.compression:true}") boolean compression,
+            @Value("${webclient.api.github.transport.connect-timeout:5s}") Duration connectTimeout,
+            @Value("${webclient.api.github.transport.response-timeout:30s}") Duration responseTimeout,
+            @Value("${webclient.api.github.transport.pool.max-connections:50}") int maxConnections,
+            @Value("${webclient.api.github.transport.pool.max-streams-per-connection:100}") int maxStreamsPerConnection,
+            @Value("${webclient.api.github.transport.pool.pending-acquire-max-count:1000}") int pendingAcquireMaxCount,
+            @Value("${webclient.api.github.transport.pool.pending-acquire-timeout:10s}") Duration pendingAcquireTimeout,
+            @Value("${webclient.api.github.transport.pool.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${webclient.api.github.transport.pool.max-life-time:5m}") Duration maxLifeTime,
+            @Value("${webclient.api.github.transport.pool.evict-in-background:30s}") Duration evictInBackground
+    ) {
+        HttpProtocol[] supportedProtocols = url.startsWith("https:")
+                ? protocols
+                // plain H2 needs TLS, fall back to HTTP/1.1 for it
+                : Arrays.stream(protocols).map(protocol -> protocol == HttpProtocol.H2 ? HttpProtocol.HTTP11 : protocol)
+                        .distinct().toArray(HttpProtocol[]::new);
+        boolean http2 = Arrays.stream(supportedProtocols).anyMatch(protocol -> protocol != HttpProtocol.HTTP11);
+
+        // named pool so Reactor Netty publishes its active, idle and pending connection (and stream) gauges
+        ConnectionProvider.Builder connectionProvider = ConnectionProvider.builder("github")
+                .metrics(true)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInBackground);
+        if (http2) {
+            connectionProvider.allocationStrategy(Http2AllocationStrategy.builder()
+                    .maxConnections(maxConnections)
+                    .maxConcurrentStreams(maxStreamsPerConnection)
+                    .build());
+        } else {
+            connectionProvider.maxConnections(maxConnections);
+        }
+
+        log.info("GithubWebClientConfiguration::githubHttpClient protocols {}, compression {}, {} connection(s)",
+                Arrays.toString(supportedProtocols), compression, maxConnections);
+
+        return HttpClient.create(connectionProvider.build())
+                .protocol(supportedProtocols)
+                // sends Accept-Encoding: gzip and decompresses the response
+                .compress(compression)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(responseTimeout);
+    }
+
+}
@@ -1,16 +1,34 @@
 package com.tomdud.githubservice.controller;
 
-import com.tomdud.githubservice.dto.RepositoryDTO;
+import com.tomdud.githubservice.codec.GithubResponseEncoder.EncodedResponse;
+import com.tomdud.githubservice.dto.UserRepositoriesDTO;
+import com.tomdud.githubservice.service.GithubAdmissionControl;
+import com.tomdud.githubservice.service.GithubRepositoriesQuery;
 import com.tomdud.githubservice.service.GithubService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.NotAcceptableStatusException;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
 
 
 @RestController
@@ -20,15 +38,124 @@ public class GithubController {
 
     private final Logger log = LoggerFactory.getLogger(GithubController.class);
     private final GithubService githubService;
+    private final GithubAdmissionControl admissionControl;
+    private final int bulkMaxUsernames;
 
-    public GithubController(GithubService githubService) {
+    public GithubController(
+            GithubService githubService,
+            GithubAdmissionControl admissionControl,
+            @Value("${webclient.api.github.bulk.max-usernames:1000}") int bulkMaxUsernames
+    ) {
         this.githubService = githubService;
+        this.admissionControl = admissionControl;
+        this.bulkMaxUsernames = bulkMaxUsernames;
     }
 
-    @GetMapping(value = "/{username}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public Flux<RepositoryDTO> getUserNotForkedRepositoriesInformation(@PathVariable String username) {
+    /**
+     * Returns a JSON array by default, written from bytes encoded once per cached response. The strong {@code ETag}
+     * of those bytes answers a matching {@code If-None-Match} with {@code 304 Not Modified}.
+     * <p>
+     * {@code branches=false} leaves out the branches and needs a single GitHub call, {@code maxBranches} caps the
+     * branches per repository, {@code repositoryFilter} and {@code branchFilter} keep names matching a glob
+     * ({@code *}, {@code ?}) or starting with a prefix. Repositories filtered out are never asked for their branches.
+     */
+    // no produces: an explicit application/x-ndjson or text/event-stream prefers the streaming mapping below
+    @GetMapping("/{username}")
+    public Mono<ResponseEntity<byte[]>> getUserNotForkedRepositoriesInformation(
+            @PathVariable String username,
+            @RequestParam(defaultValue = "true") boolean branches,
+            @RequestParam(required = false) Integer maxBranches,
+            @RequestParam(required = false) String repositoryFilter,
+            @RequestParam(required = false) String branchFilter,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestAttribute(value = GithubAdmissionControl.CLIENT_ATTRIBUTE, required = false) String client
+    ) {
         log.info("GithubController::getUserNotForkedRepositoriesInformation::GetMapping - for {}", username);
-        return githubService.getUserRepositories(username);
+        if (!acceptsJson(accept)) {
+            throw new NotAcceptableStatusException(List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON, MediaType.TEXT_EVENT_STREAM));
+        }
+        GithubRepositoriesQuery query = toQuery(branches, maxBranches, repositoryFilter, branchFilter);
+        return admissionControl.admit(client, githubService.getEncodedUserRepositories(username, query))
+                .map(encoded -> toResponse(encoded, ifNoneMatch));
+    }
+
+    /**
+     * Streams the same repositories, every repository is written and flushed as soon as its branches are resolved,
+     * instead of after the whole list. A cached list is written from JSON encoded once per cached response. Accepts
+     * the same query parameters as the JSON array.
+     */
+    @GetMapping(
+            value = "/{username}",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE}
+    )
+    public Flux<Object> streamUserNotForkedRepositoriesInformation(
+            @PathVariable String username,
+            @RequestParam(defaultValue = "true") boolean branches,
+            @RequestParam(required = false) Integer maxBranches,
+            @RequestParam(required = false) String repositoryFilter,
+            @RequestParam(required = false) String branchFilter,
+            @RequestAttribute(value = GithubAdmissionControl.CLIENT_ATTRIBUTE, required = false) String client
+    ) {
+        log.info("GithubController::streamUserNotForkedRepositoriesInformation::GetMapping - for {}", username);
+        GithubRepositoriesQuery query = toQuery(branches, maxBranches, repositoryFilter, branchFilter);
+        return admissionControl.admit(client, githubService.streamUserRepositories(username, query));
+    }
+
+    /**
+     * Resolves a JSON array of usernames in one call. Repeated usernames are resolved once and every user is written
+     * as soon as it is complete, in completion order; users that cannot be resolved carry an {@code error} instead of
+     * {@code repositories}. Accepts the same query parameters as the single user endpoint.
+     */
+    @PostMapping(
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE}
+    )
+    public Flux<UserRepositoriesDTO> getUsersNotForkedRepositoriesInformation(
+            @RequestBody List<String> usernames,
+            @RequestParam(defaultValue = "true") boolean branches,
+            @RequestParam(required = false) Integer maxBranches,
+            @RequestParam(required = false) String repositoryFilter,
+            @RequestParam(required = false) String branchFilter,
+            @RequestAttribute(value = GithubAdmissionControl.CLIENT_ATTRIBUTE, required = false) String client
+    ) {
+        log.info("GithubController::getUsersNotForkedRepositoriesInformation::PostMapping - for {} usernames", usernames.size());
+        if (usernames.size() > bulkMaxUsernames) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    String.format("At most %d usernames can be requested at once", bulkMaxUsernames)
+            );
+        }
+        GithubRepositoriesQuery query = toQuery(branches, maxBranches, repositoryFilter, branchFilter);
+        return admissionControl.admit(client, githubService.getUsersRepositories(usernames, query));
+    }
+
+    private static boolean acceptsJson(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+        try {
+            return MediaType.parseMediaTypes(accept).stream().anyMatch(mediaType -> mediaType.includes(MediaType.APPLICATION_JSON));
+        } catch (InvalidMediaTypeException invalidMediaTypeException) {
+            return false;
+        }
+    }
+
+    private static ResponseEntity<byte[]> toResponse(EncodedResponse encoded, String ifNoneMatch) {
+        if (encoded.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(encoded.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(encoded.etag())
+                .body(encoded.body());
+    }
+
+    private static GithubRepositoriesQuery toQuery(boolean branches, Integer maxBranches, String repositoryFilter, String branchFilter) {
+        if (maxBranches != null && maxBranches < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "maxBranches must not be negative");
+        }
+        return new GithubRepositoriesQuery(branches, maxBranches, repositoryFilter, branchFilter);
     }
 
 }
@@ -0,0 +1,43 @@
+package com.tomdud.githubservice.controller;
+
+import com.tomdud.githubservice.service.GithubWebhookService;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+
+@RestController
+@RequestMapping("api/v1/github/webhooks")
+@Tag(name = "GitHub webhook controller")
+public class GithubWebhookController {
+
+    private final Logger log = LoggerFactory.getLogger(GithubWebhookController.class);
+    private final GithubWebhookService githubWebhookService;
+
+    public GithubWebhookController(GithubWebhookService githubWebhookService) {
+        this.githubWebhookService = githubWebhookService;
+    }
+
+    /**
+     * Receives GitHub webhook deliveries with {@code application/json} content type. The raw body is kept as bytes,
+     * because {@code X-Hub-Signature-256} is computed over the exact payload GitHub sent.
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Void> receiveWebhook(
+            @RequestHeader("X-GitHub-Event") String event,
+            @RequestHeader(value = "X-Hub-Signature-256", required = false) String signature,
+            @RequestBody byte[] payload
+    ) {
+        log.info("GithubWebhookController::receiveWebhook::PostMapping - {} event", event);
+        githubWebhookService.handle(event, signature, payload);
+        return ResponseEntity.noContent().build();
+    }
+
+}
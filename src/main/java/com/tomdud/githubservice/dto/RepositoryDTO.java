@@ -1,6 +1,7 @@
 package com.tomdud.githubservice.dto;
 
 import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.List;
@@ -16,12 +17,21 @@ public class RepositoryDTO {
     @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private boolean fork;
 
+    // left out for callers not asking for branches
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<BranchDTO> branches;
 
+    @JsonProperty(value = "pushed_at", access = JsonProperty.Access.WRITE_ONLY)
+    private String pushedAt;
+
     public void setRepositoryName(String repositoryName) {
         this.repositoryName = repositoryName;
     }
 
+    public void setRepositoryOwner(String repositoryOwner) {
+        this.repositoryOwner = repositoryOwner;
+    }
+
     @JsonProperty("owner")
     private void unpackNestedOwner(Map<String,Object> owner) {
         this.repositoryOwner = (String)owner.get("login");
@@ -35,6 +45,10 @@ public class RepositoryDTO {
         this.branches = branches;
     }
 
+    public void setPushedAt(String pushedAt) {
+        this.pushedAt = pushedAt;
+    }
+
     public String getRepositoryName() {
         return repositoryName;
     }
@@ -50,4 +64,8 @@ public class RepositoryDTO {
     public String getRepositoryOwner() {
         return repositoryOwner;
     }
+
+    public String getPushedAt() {
+        return pushedAt;
+    }
 }
@@ -0,0 +1,42 @@
+package com.tomdud.githubservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserRepositoriesDTO {
+    private String username;
+    private List<RepositoryDTO> repositories;
+    private ErrorDTO error;
+
+    public UserRepositoriesDTO(String username, List<RepositoryDTO> repositories, ErrorDTO error) {
+        this.username = username;
+        this.repositories = repositories;
+        this.error = error;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public List<RepositoryDTO> getRepositories() {
+        return repositories;
+    }
+
+    public void setRepositories(List<RepositoryDTO> repositories) {
+        this.repositories = repositories;
+    }
+
+    public ErrorDTO getError() {
+        return error;
+    }
+
+    public void setError(ErrorDTO error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,17 @@
+package com.tomdud.githubservice.exception;
+
+import java.time.Instant;
+
+public class GithubRateLimitExceededException extends RuntimeException {
+
+    private final Instant retryAt;
+
+    public GithubRateLimitExceededException(String message, Instant retryAt) {
+        super(message);
+        this.retryAt = retryAt;
+    }
+
+    public Instant getRetryAt() {
+        return retryAt;
+    }
+}
@@ -0,0 +1,25 @@
+package com.tomdud.githubservice.exception;
+
+import org.springframework.http.HttpStatus;
+
+import java.time.Instant;
+
+public class GithubServiceOverloadedException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final Instant retryAt;
+
+    public GithubServiceOverloadedException(String message, HttpStatus status, Instant retryAt) {
+        super(message);
+        this.status = status;
+        this.retryAt = retryAt;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public Instant getRetryAt() {
+        return retryAt;
+    }
+}
@@ -0,0 +1,17 @@
+package com.tomdud.githubservice.exception;
+
+import java.time.Instant;
+
+public class GithubUnavailableException extends RuntimeException {
+
+    private final Instant retryAt;
+
+    public GithubUnavailableException(String message, Instant retryAt) {
+        super(message);
+        this.retryAt = retryAt;
+    }
+
+    public Instant getRetryAt() {
+        return retryAt;
+    }
+}
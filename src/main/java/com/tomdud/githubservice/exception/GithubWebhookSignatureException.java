@@ -0,0 +1,7 @@
+package com.tomdud.githubservice.exception;
+
+public class GithubWebhookSignatureException extends RuntimeException {
+    public GithubWebhookSignatureException(String message) {
+        super(message);
+    }
+}
@@ -2,8 +2,12 @@ package com.tomdud.githubservice.handler;
 
 import com.tomdud.githubservice.dto.ErrorDTO;
 import com.tomdud.githubservice.exception.GithubBadRequestException;
+import com.tomdud.githubservice.exception.GithubRateLimitExceededException;
 import com.tomdud.githubservice.exception.GithubResourceNotFoundException;
+import com.tomdud.githubservice.exception.GithubServiceOverloadedException;
+import com.tomdud.githubservice.exception.GithubUnavailableException;
 import com.tomdud.githubservice.exception.GithubUserNotFoundException;
+import com.tomdud.githubservice.exception.GithubWebhookSignatureException;
 import com.tomdud.githubservice.exception.UnknownGithubApiException;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import org.slf4j.Logger;
@@ -19,11 +23,19 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.NotAcceptableStatusException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
 
 @RestControllerAdvice
 @Order(Ordered.HIGHEST_PRECEDENCE)
 public class GithubExceptionHandler {
 
+    private static final String ACCEPTABLE_MEDIA_TYPES = String.join(", ",
+            MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE);
+
     private final Logger log = LoggerFactory.getLogger(GithubExceptionHandler.class);
 
     @ResponseBody
@@ -34,7 +46,7 @@ public class GithubExceptionHandler {
 
         ErrorDTO errorDTO = new ErrorDTO(HttpResponseStatus.NOT_FOUND.code(), ex.getMessage());
 
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorDTO);
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON).body(errorDTO);
     }
 
     @ResponseBody
@@ -45,7 +57,7 @@ public class GithubExceptionHandler {
 
         ErrorDTO errorDTO = new ErrorDTO(HttpResponseStatus.NOT_FOUND.code(), ex.getMessage());
 
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorDTO);
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON).body(errorDTO);
     }
 
     @ResponseBody
@@ -56,7 +68,7 @@ public class GithubExceptionHandler {
 
         ErrorDTO errorDTO = new ErrorDTO(HttpResponseStatus.INTERNAL_SERVER_ERROR.code(), ex.getMessage());
 
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorDTO);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).contentType(MediaType.APPLICATION_JSON).body(errorDTO);
     }
 
     @ResponseBody
@@ -67,7 +79,62 @@ public class GithubExceptionHandler {
 
         ErrorDTO errorDTO = new ErrorDTO(HttpResponseStatus.BAD_REQUEST.code(), ex.getMessage());
 
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorDTO);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).contentType(MediaType.APPLICATION_JSON).body(errorDTO);
+    }
+
+    @ResponseBody
+    @ResponseStatus(HttpStatus.UNAUTHORIZED)
+    @ExceptionHandler(GithubWebhookSignatureException.class)
+    public ResponseEntity<ErrorDTO> handleGithubWebhookSignatureException(GithubWebhookSignatureException ex) {
+        log.error("ExceptionHandler::handleGithubWebhookSignatureException caught: {}", ex.getMessage());
+
+        ErrorDTO errorDTO = new ErrorDTO(HttpResponseStatus.UNAUTHORIZED.code(), ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).contentType(MediaType.APPLICATION_JSON).body(errorDTO);
+    }
+
+    @ResponseBody
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    @ExceptionHandler(GithubRateLimitExceededException.class)
+    public ResponseEntity<ErrorDTO> handleGithubRateLimitExceededException(GithubRateLimitExceededException ex) {
+        log.error("ExceptionHandler::handleGithubRateLimitExceededException caught: {}", ex.getMessage());
+
+        ErrorDTO errorDTO = new ErrorDTO(HttpResponseStatus.TOO_MANY_REQUESTS.code(), ex.getMessage());
+        long retryAfterSeconds = Math.max(1, Duration.between(Instant.now(), ex.getRetryAt()).toSeconds());
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorDTO);
+    }
+
+    @ResponseBody
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(GithubUnavailableException.class)
+    public ResponseEntity<ErrorDTO> handleGithubUnavailableException(GithubUnavailableException ex) {
+        log.error("ExceptionHandler::handleGithubUnavailableException caught: {}", ex.getMessage());
+
+        ErrorDTO errorDTO = new ErrorDTO(HttpResponseStatus.SERVICE_UNAVAILABLE.code(), ex.getMessage());
+        long retryAfterSeconds = Math.max(1, Duration.between(Instant.now(), ex.getRetryAt()).toSeconds());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorDTO);
+    }
+
+    @ResponseBody
+    @ExceptionHandler(GithubServiceOverloadedException.class)
+    public ResponseEntity<ErrorDTO> handleGithubServiceOverloadedException(GithubServiceOverloadedException ex) {
+        log.error("ExceptionHandler::handleGithubServiceOverloadedException caught: {}", ex.getMessage());
+
+        ErrorDTO errorDTO = new ErrorDTO(ex.getStatus().value(), ex.getMessage());
+        long retryAfterSeconds = Math.max(1, Duration.between(Instant.now(), ex.getRetryAt()).toSeconds());
+
+        return ResponseEntity.status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorDTO);
     }
 
     @ResponseBody
@@ -78,18 +145,29 @@ public class GithubExceptionHandler {
 
         ErrorDTO errorDTO = new ErrorDTO(HttpResponseStatus.INTERNAL_SERVER_ERROR.code(), ex.getMessage());
 
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorDTO);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).contentType(MediaType.APPLICATION_JSON).body(errorDTO);
+    }
+
+    //Thrown by WebFlux instead of the servlet exceptions when the service runs on the reactive runtime, e.g. unknown paths
+    @ResponseBody
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ErrorDTO> handleResponseStatusException(ResponseStatusException ex) {
+        log.error("ExceptionHandler::handleResponseStatusException caught: {}", ex.getMessage());
+
+        ErrorDTO errorDTO = new ErrorDTO(ex.getStatusCode().value(), ex.getReason() != null ? ex.getReason() : ex.getMessage());
+
+        return ResponseEntity.status(ex.getStatusCode()).contentType(MediaType.APPLICATION_JSON).body(errorDTO);
     }
 
     @ResponseBody
     @ResponseStatus(HttpStatus.NOT_ACCEPTABLE)
-    @ExceptionHandler(HttpMediaTypeNotAcceptableException.class)
+    @ExceptionHandler({HttpMediaTypeNotAcceptableException.class, NotAcceptableStatusException.class})
     public ResponseEntity<ErrorDTO> handleHttpMediaTypeNotAcceptableException() {
         log.error("ExceptionHandler::handleHttpMediaTypeNotAcceptableException caught");
 
         ErrorDTO errorDTO = new ErrorDTO(
                 HttpResponseStatus.NOT_ACCEPTABLE.code(),
-                "You provided wrong Accept header, there is a acceptable MIME type:" + MediaType.APPLICATION_JSON_VALUE
+                "You provided wrong Accept header, there is a acceptable MIME type:" + ACCEPTABLE_MEDIA_TYPES
         );
 
         //Create header to prevent error from spring, which check the consistency between returned type and user Accept header
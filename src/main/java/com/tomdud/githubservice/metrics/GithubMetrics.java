@@ -0,0 +1,146 @@
+package com.tomdud.githubservice.metrics;
+
+import com.tomdud.githubservice.dto.RepositoryDTO;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Micrometer instrumentation of the upstream GitHub calls and of the per-user aggregation.
+ * <p>
+ * Upstream calls are tagged by endpoint (the resource kind, never the username or repository), HTTP method and
+ * status. The last seen {@code X-RateLimit-Remaining}/{@code X-RateLimit-Reset} values are exposed as gauges,
+ * {@code -1} until the first response arrives.
+ */
+@Component
+public class GithubMetrics {
+
+    private static final Pattern USER_REPOS_PATH = Pattern.compile("^/(users/[^/]+|user/\\d+)/repos$");
+    private static final Pattern REPO_BRANCHES_PATH = Pattern.compile("^/(repos/[^/]+/[^/]+|repositories/\\d+)/branches$");
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger upstreamInFlight = new AtomicInteger();
+    private final AtomicLong rateLimitRemaining = new AtomicLong(-1);
+    private final AtomicLong rateLimitReset = new AtomicLong(-1);
+    private final DistributionSummary repositoriesPerUser;
+    private final DistributionSummary branchesPerUser;
+
+    public GithubMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("github.upstream.requests.in.flight", upstreamInFlight, AtomicInteger::get)
+                .description("GitHub API calls waiting for a response")
+                .register(meterRegistry);
+        Gauge.builder("github.ratelimit.remaining", rateLimitRemaining, AtomicLong::get)
+                .description("Last seen X-RateLimit-Remaining")
+                .register(meterRegistry);
+        Gauge.builder("github.ratelimit.reset", rateLimitReset, AtomicLong::get)
+                .description("Last seen X-RateLimit-Reset, epoch seconds")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        this.repositoriesPerUser = DistributionSummary.builder("github.user.repositories")
+                .description("Not forked repositories resolved per user")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.branchesPerUser = DistributionSummary.builder("github.user.branches")
+                .description("Branches resolved per user")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public ExchangeFilterFunction upstreamMetricsFilter() {
+        return (request, next) -> Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            AtomicBoolean stopped = new AtomicBoolean();
+            upstreamInFlight.incrementAndGet();
+            return next.exchange(request)
+                    .doOnNext(response -> {
+                        recordRateLimit(response.headers().asHttpHeaders());
+                        stop(sample, stopped, request, String.valueOf(response.statusCode().value()));
+                    })
+                    .doOnError(error -> stop(sample, stopped, request, "IO_ERROR"))
+                    // hedged, timed out or abandoned calls, leaving them out would hide the slowest ones
+                    .doOnCancel(() -> stop(sample, stopped, request, "CANCELLED"))
+                    .doFinally(signalType -> upstreamInFlight.decrementAndGet());
+        });
+    }
+
+    /**
+     * Records the number of repositories and branches of one upstream aggregation once it completes, without
+     * collecting the repositories.
+     */
+    public Flux<RepositoryDTO> recordUserRepositories(Flux<RepositoryDTO> repositories) {
+        return Flux.defer(() -> {
+            AtomicLong repositoriesCount = new AtomicLong();
+            AtomicLong branchesCount = new AtomicLong();
+            return repositories
+                    .doOnNext(repository -> {
+                        repositoriesCount.incrementAndGet();
+                        branchesCount.addAndGet(repository.getBranches() != null ? repository.getBranches().size() : 0);
+                    })
+                    .doOnComplete(() -> {
+                        repositoriesPerUser.record(repositoriesCount.get());
+                        branchesPerUser.record(branchesCount.get());
+                    });
+        });
+    }
+
+    // a call is recorded once, a cancel may still arrive after its response
+    private void stop(Timer.Sample sample, AtomicBoolean stopped, ClientRequest request, String status) {
+        if (stopped.compareAndSet(false, true)) {
+            sample.stop(upstreamTimer(request, status));
+        }
+    }
+
+    private Timer upstreamTimer(ClientRequest request, String status) {
+        return Timer.builder("github.upstream.requests")
+                .description("GitHub API calls, until the response headers arrive")
+                .tag("endpoint", endpoint(request.url().getPath()))
+                .tag("method", request.method().name())
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private void recordRateLimit(HttpHeaders headers) {
+        parseLong(headers.getFirst("X-RateLimit-Remaining"), rateLimitRemaining);
+        parseLong(headers.getFirst("X-RateLimit-Reset"), rateLimitReset);
+    }
+
+    private static void parseLong(String value, AtomicLong holder) {
+        if (value == null) {
+            return;
+        }
+        try {
+            holder.set(Long.parseLong(value.trim()));
+        } catch (NumberFormatException ignored) {
+            // keep the last valid value
+        }
+    }
+
+    static String endpoint(String path) {
+        if (USER_REPOS_PATH.matcher(path).matches()) {
+            return "user_repos";
+        }
+        if (REPO_BRANCHES_PATH.matcher(path).matches()) {
+            return "repo_branches";
+        }
+        if (path.endsWith("/graphql")) {
+            return "graphql";
+        }
+        return "other";
+    }
+}
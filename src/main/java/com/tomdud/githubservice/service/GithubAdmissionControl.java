@@ -0,0 +1,332 @@
+package com.tomdud.githubservice.service;
+
+import com.tomdud.githubservice.exception.GithubServiceOverloadedException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Admission control in front of the controller: at most {@code max-concurrent} requests run at once, further requests
+ * wait in a bounded queue for at most {@code queue-timeout}. Waiting clients (a known API key, otherwise the remote
+ * address) are admitted in turns, and a client running more than its fair share of {@code max-concurrent} waits behind clients
+ * running less, so a single busy client cannot starve the others.
+ * <p>
+ * Requests that cannot wait are rejected right away instead of slowing down everyone: {@code 429} for a client over
+ * its share, {@code 503} when the queue is full or the wait timed out, both with {@code Retry-After}. Every request
+ * runs under a deadline counted from its arrival. When it passes the request is cancelled together with its upstream
+ * calls, and the deadline travels in the Reactor context so that no retry is started that could not finish in time.
+ */
+@Component
+public class GithubAdmissionControl implements MeterBinder {
+
+    public static final String CLIENT_ATTRIBUTE = "githubservice.admission.client";
+    // System.nanoTime() by which the request must complete
+    public static final String DEADLINE_CONTEXT_KEY = "githubservice.admission.deadline";
+
+    private static final String ANONYMOUS = "anonymous";
+
+    private final Logger log = LoggerFactory.getLogger(GithubAdmissionControl.class);
+
+    private final boolean enabled;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final int maxQueuedPerClient;
+    private final Duration queueTimeout;
+    private final Duration deadline;
+    private final Duration retryAfter;
+    private final Set<String> apiKeys;
+
+    // guarded by this
+    private final Map<String, Client> clients = new HashMap<>();
+    private final ArrayDeque<Client> turns = new ArrayDeque<>();
+    private volatile int inFlight;
+    private volatile int queued;
+
+    private final LongAdder clientShareRejections = new LongAdder();
+    private final LongAdder queueFullRejections = new LongAdder();
+    private final LongAdder queueTimeouts = new LongAdder();
+    private final LongAdder deadlinesExceeded = new LongAdder();
+
+    public GithubAdmissionControl(
+            @Value("${webclient.api.github.admission.enabled:true}") boolean enabled,
+            @Value("${webclient.api.github.admission.max-concurrent:64}") int maxConcurrent,
+            @Value("${webclient.api.github.admission.max-queued:256}") int maxQueued,
+            @Value("${webclient.api.github.admission.max-queued-per-client:16}") int maxQueuedPerClient,
+            @Value("${webclient.api.github.admission.queue-timeout:2s}") Duration queueTimeout,
+            @Value("${webclient.api.github.admission.deadline:30s}") Duration deadline,
+            @Value("${webclient.api.github.admission.retry-after:1s}") Duration retryAfter,
+            @Value("${webclient.api.github.admission.api-keys:}") String[] apiKeys
+    ) {
+        this.enabled = enabled;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.maxQueuedPerClient = Math.max(0, maxQueuedPerClient);
+        this.queueTimeout = queueTimeout;
+        this.deadline = deadline;
+        this.retryAfter = retryAfter;
+        this.apiKeys = Arrays.stream(apiKeys)
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Identifies the client a request is admitted for, the API key when it is one of {@code api-keys}. Any other key is
+     * ignored, a client could otherwise send a new one with every request and get a fair share for each of them.
+     */
+    public String clientOf(String apiKey, String remoteAddress) {
+        if (apiKey != null && apiKeys.contains(apiKey.trim())) {
+            return "key:" + apiKey.trim();
+        }
+        return remoteAddress != null ? "address:" + remoteAddress : ANONYMOUS;
+    }
+
+    public <T> Flux<T> admit(String client, Flux<T> request) {
+        if (!enabled) {
+            return request;
+        }
+        return Flux.defer(() -> {
+            long deadlineNanos = System.nanoTime() + deadline.toNanos();
+            return Flux.usingWhen(
+                    acquire(client != null ? client : ANONYMOUS),
+                    permit -> request
+                            // one deadline for the whole stream, not one per element
+                            .timeout(Mono.delay(remaining(deadlineNanos)),
+                                    element -> Mono.delay(remaining(deadlineNanos)),
+                                    Flux.error(this::deadlineExceeded))
+                            .contextWrite(Context.of(DEADLINE_CONTEXT_KEY, deadlineNanos)),
+                    Permit::release,
+                    (permit, error) -> permit.release(),
+                    Permit::release
+            );
+        });
+    }
+
+    public <T> Mono<T> admit(String client, Mono<T> request) {
+        if (!enabled) {
+            return request;
+        }
+        return Mono.defer(() -> {
+            long deadlineNanos = System.nanoTime() + deadline.toNanos();
+            return Mono.usingWhen(
+                    acquire(client != null ? client : ANONYMOUS),
+                    permit -> request
+                            .timeout(remaining(deadlineNanos), Mono.error(this::deadlineExceeded))
+                            .contextWrite(Context.of(DEADLINE_CONTEXT_KEY, deadlineNanos)),
+                    Permit::release,
+                    (permit, error) -> permit.release(),
+                    Permit::release
+            );
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("github.admission.in.flight", this, admissionControl -> admissionControl.inFlight)
+                .description("Requests currently running")
+                .register(registry);
+        Gauge.builder("github.admission.queue.depth", this, admissionControl -> admissionControl.queued)
+                .description("Requests waiting to be admitted")
+                .register(registry);
+        Gauge.builder("github.admission.limit", this, admissionControl -> admissionControl.maxConcurrent)
+                .description("Requests allowed to run at once")
+                .register(registry);
+        registerShedCounter(registry, clientShareRejections, "client_share");
+        registerShedCounter(registry, queueFullRejections, "queue_full");
+        registerShedCounter(registry, queueTimeouts, "queue_timeout");
+        registerShedCounter(registry, deadlinesExceeded, "deadline");
+    }
+
+    private Mono<Permit> acquire(String clientId) {
+        Mono<Permit> permit = Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            sink.onCancel(() -> cancel(waiter));
+
+            GithubServiceOverloadedException rejection = null;
+            synchronized (this) {
+                Client client = clients.computeIfAbsent(clientId, Client::new);
+                waiter.client = client;
+                if (queued == 0 && inFlight < maxConcurrent) {
+                    waiter.permit = grant(client);
+                } else if (client.waiting.size() >= maxQueuedPerClient
+                        || (queued >= maxQueued && client.inFlight + client.waiting.size() >= fairShare())) {
+                    clientShareRejections.increment();
+                    rejection = rejected(HttpStatus.TOO_MANY_REQUESTS, "Too many concurrent requests from this client");
+                } else if (queued >= maxQueued) {
+                    queueFullRejections.increment();
+                    rejection = rejected(HttpStatus.SERVICE_UNAVAILABLE, "Service is overloaded, too many requests are waiting");
+                } else {
+                    if (client.waiting.isEmpty()) {
+                        turns.addLast(client);
+                    }
+                    client.waiting.addLast(waiter);
+                    queued++;
+                }
+                if (rejection != null) {
+                    removeIfIdle(client);
+                }
+            }
+
+            if (rejection != null) {
+                log.warn("GithubAdmissionControl::acquire rejected a request: {}", rejection.getMessage());
+                sink.error(rejection);
+            } else if (waiter.permit != null) {
+                sink.success(waiter.permit);
+            }
+        });
+        return permit.timeout(queueTimeout, Mono.error(() -> {
+            queueTimeouts.increment();
+            return rejected(HttpStatus.SERVICE_UNAVAILABLE, "Service is overloaded, the request waited too long to be admitted");
+        }));
+    }
+
+    private void cancel(Waiter waiter) {
+        Permit permit;
+        synchronized (this) {
+            permit = waiter.permit;
+            if (permit == null && waiter.client != null && waiter.client.waiting.remove(waiter)) {
+                queued--;
+                if (waiter.client.waiting.isEmpty()) {
+                    turns.remove(waiter.client);
+                }
+                removeIfIdle(waiter.client);
+            }
+        }
+        // granted while cancelled, the permit may never have reached the request
+        if (permit != null) {
+            permit.release();
+        }
+    }
+
+    private void release(Permit permit) {
+        List<Waiter> admitted = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            permit.client.inFlight--;
+            removeIfIdle(permit.client);
+            while (inFlight < maxConcurrent && !turns.isEmpty()) {
+                Client client = nextTurn();
+                Waiter waiter = client.waiting.pollFirst();
+                queued--;
+                if (!client.waiting.isEmpty()) {
+                    turns.addLast(client);
+                }
+                waiter.permit = grant(client);
+                admitted.add(waiter);
+            }
+        }
+        admitted.forEach(waiter -> waiter.sink.success(waiter.permit));
+    }
+
+    // the first waiting client within its fair share, or the longest waiting one when every client is over it
+    private Client nextTurn() {
+        int share = fairShare();
+        for (Iterator<Client> iterator = turns.iterator(); iterator.hasNext(); ) {
+            Client client = iterator.next();
+            if (client.inFlight < share) {
+                iterator.remove();
+                return client;
+            }
+        }
+        return turns.pollFirst();
+    }
+
+    private int fairShare() {
+        return Math.max(1, maxConcurrent / Math.max(1, clients.size()));
+    }
+
+    private Permit grant(Client client) {
+        inFlight++;
+        client.inFlight++;
+        return new Permit(client);
+    }
+
+    private void removeIfIdle(Client client) {
+        if (client.inFlight == 0 && client.waiting.isEmpty()) {
+            clients.remove(client.id, client);
+        }
+    }
+
+    private GithubServiceOverloadedException deadlineExceeded() {
+        deadlinesExceeded.increment();
+        return rejected(HttpStatus.SERVICE_UNAVAILABLE, "Request did not complete within " + deadline.toMillis() + " ms");
+    }
+
+    private GithubServiceOverloadedException rejected(HttpStatus status, String message) {
+        return new GithubServiceOverloadedException(message, status, Instant.now().plus(retryAfter));
+    }
+
+    private static Duration remaining(long deadlineNanos) {
+        return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+    }
+
+    private static void registerShedCounter(MeterRegistry registry, LongAdder counter, String reason) {
+        FunctionCounter.builder("github.admission.shed", counter, LongAdder::sum)
+                .description("Requests rejected or cancelled by the admission control, by reason")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private static final class Client {
+
+        private final String id;
+        private final ArrayDeque<Waiter> waiting = new ArrayDeque<>();
+        private int inFlight;
+
+        private Client(String id) {
+            this.id = id;
+        }
+    }
+
+    private static final class Waiter {
+
+        private final MonoSink<Permit> sink;
+        private Client client;
+        private Permit permit;
+
+        private Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+    }
+
+    private final class Permit {
+
+        private final Client client;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Client client) {
+            this.client = client;
+        }
+
+        private Mono<Void> release() {
+            if (released.compareAndSet(false, true)) {
+                GithubAdmissionControl.this.release(this);
+            }
+            return Mono.empty();
+        }
+    }
+}
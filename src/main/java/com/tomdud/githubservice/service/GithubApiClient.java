@@ -0,0 +1,20 @@
+package com.tomdud.githubservice.service;
+
+import com.tomdud.githubservice.dto.RepositoryDTO;
+import reactor.core.publisher.Flux;
+
+/**
+ * Upstream backend resolving the not forked repositories of a user together with their branches.
+ */
+public interface GithubApiClient {
+
+    default Flux<RepositoryDTO> getUserRepositories(String username) {
+        return getUserRepositories(username, GithubRepositoriesQuery.ALL);
+    }
+
+    /**
+     * Resolves only the repositories and branches selected by {@code query}, without calling GitHub for the others.
+     */
+    Flux<RepositoryDTO> getUserRepositories(String username, GithubRepositoriesQuery query);
+
+}
@@ -0,0 +1,127 @@
+package com.tomdud.githubservice.service;
+
+import com.tomdud.githubservice.dto.BranchDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Last resolved branch list of every repository, together with the {@code pushed_at} of the repository it was fetched
+ * at. While the repository list reports the same {@code pushed_at}, nothing was pushed to the repository and its
+ * branches are taken from here instead of calling {@code /branches} again.
+ * <p>
+ * Creating or deleting a branch without pushing commits does not always move {@code pushed_at}, so snapshots are also
+ * dropped after {@code max-age}. The number of snapshots is bounded, least recently used ones are evicted first.
+ */
+@Component
+public class GithubBranchSnapshotCache implements MeterBinder {
+
+    private final boolean enabled;
+    private final long maxAgeNanos;
+    private final int maxEntries;
+    private final LongSupplier nanoClock;
+    private final Map<String, Snapshot> snapshots;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public GithubBranchSnapshotCache(
+            @Value("${webclient.api.github.incremental.enabled:true}") boolean enabled,
+            @Value("${webclient.api.github.incremental.max-age:1h}") Duration maxAge,
+            @Value("${webclient.api.github.incremental.max-entries:10000}") int maxEntries
+    ) {
+        this(enabled, maxAge, maxEntries, System::nanoTime);
+    }
+
+    GithubBranchSnapshotCache(boolean enabled, Duration maxAge, int maxEntries, LongSupplier nanoClock) {
+        this.enabled = enabled && maxEntries > 0;
+        this.maxAgeNanos = maxAge.toNanos();
+        this.maxEntries = maxEntries;
+        this.nanoClock = nanoClock;
+        this.snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+                return size() > GithubBranchSnapshotCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the branches fetched at {@code pushedAt}, or {@code null} when they have to be fetched.
+     */
+    public List<BranchDTO> get(String owner, String repositoryName, String pushedAt) {
+        if (!enabled || pushedAt == null) {
+            return null;
+        }
+
+        Snapshot snapshot;
+        synchronized (snapshots) {
+            snapshot = snapshots.get(key(owner, repositoryName));
+        }
+
+        if (snapshot == null || !snapshot.pushedAt.equals(pushedAt) || nanoClock.getAsLong() - snapshot.storedNanos >= maxAgeNanos) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return snapshot.branches;
+    }
+
+    public void put(String owner, String repositoryName, String pushedAt, List<BranchDTO> branches) {
+        if (!enabled || pushedAt == null) {
+            return;
+        }
+
+        Snapshot snapshot = new Snapshot(pushedAt, List.copyOf(branches), nanoClock.getAsLong());
+        synchronized (snapshots) {
+            snapshots.put(key(owner, repositoryName), snapshot);
+        }
+    }
+
+    public void invalidate(String owner, String repositoryName) {
+        synchronized (snapshots) {
+            snapshots.remove(key(owner, repositoryName));
+        }
+    }
+
+    public int size() {
+        synchronized (snapshots) {
+            return snapshots.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("github.branch.snapshots.size", this, GithubBranchSnapshotCache::size)
+                .description("Repositories with a known branch list")
+                .register(registry);
+        FunctionCounter.builder("github.branch.snapshots.requests", hits, LongAdder::sum)
+                .description("Branch lookups by snapshot result")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("github.branch.snapshots.requests", misses, LongAdder::sum)
+                .description("Branch lookups by snapshot result")
+                .tag("result", "miss")
+                .register(registry);
+    }
+
+    private static String key(String owner, String repositoryName) {
+        return (owner + "/" + repositoryName).toLowerCase(Locale.ROOT);
+    }
+
+    private record Snapshot(String pushedAt, List<BranchDTO> branches, long storedNanos) {
+    }
+}
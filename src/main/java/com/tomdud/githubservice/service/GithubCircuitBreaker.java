@@ -0,0 +1,207 @@
+package com.tomdud.githubservice.service;
+
+import com.tomdud.githubservice.exception.GithubRateLimitExceededException;
+import com.tomdud.githubservice.exception.GithubUnavailableException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops calling GitHub while it is failing. The outcome of the last {@code window} calls is kept; once at least
+ * {@code minimum-calls} of them are known and {@code failure-rate-threshold} percent failed, the breaker opens and every
+ * call fails at once with {@link GithubUnavailableException} for {@code open-duration}. Afterwards a single trial call
+ * is let through: when it succeeds the breaker closes, otherwise it opens again.
+ * <p>
+ * Failures are {@code 5xx} responses and errors reaching GitHub. Client errors and an exhausted rate limit say nothing
+ * about the health of GitHub and count as successes.
+ */
+@Component
+public class GithubCircuitBreaker implements MeterBinder {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final Logger log = LoggerFactory.getLogger(GithubCircuitBreaker.class);
+
+    private final boolean enabled;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationMillis;
+    private final LongSupplier epochMillisClock;
+
+    private final Object lock = new Object();
+    private final boolean[] outcomes;
+    private int recorded;
+    private int failures;
+    private int next;
+    private State state = State.CLOSED;
+    private long openedAtMillis;
+    private boolean trialInFlight;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder transitions = new LongAdder();
+
+    @Autowired
+    public GithubCircuitBreaker(
+            @Value("${webclient.api.github.resilience.circuit-breaker.enabled:true}") boolean enabled,
+            @Value("${webclient.api.github.resilience.circuit-breaker.window:50}") int window,
+            @Value("${webclient.api.github.resilience.circuit-breaker.minimum-calls:20}") int minimumCalls,
+            @Value("${webclient.api.github.resilience.circuit-breaker.failure-rate-threshold:50}") double failureRateThreshold,
+            @Value("${webclient.api.github.resilience.circuit-breaker.open-duration:30s}") Duration openDuration
+    ) {
+        this(enabled, window, minimumCalls, failureRateThreshold, openDuration, System::currentTimeMillis);
+    }
+
+    GithubCircuitBreaker(boolean enabled, int window, int minimumCalls, double failureRateThreshold,
+                         Duration openDuration, LongSupplier epochMillisClock) {
+        this.enabled = enabled && window > 0;
+        this.outcomes = new boolean[Math.max(1, window)];
+        this.minimumCalls = Math.min(Math.max(1, minimumCalls), outcomes.length);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationMillis = openDuration.toMillis();
+        this.epochMillisClock = epochMillisClock;
+    }
+
+    public ExchangeFilterFunction circuitBreakerFilter() {
+        return (request, next) -> {
+            if (!enabled) {
+                return next.exchange(request);
+            }
+
+            return Mono.defer(() -> {
+                boolean trial = acquirePermission();
+                AtomicBoolean finished = new AtomicBoolean();
+                return next.exchange(request)
+                        .doOnNext(response -> {
+                            if (finished.compareAndSet(false, true)) {
+                                onResult(!response.statusCode().is5xxServerError(), trial);
+                            }
+                        })
+                        .doOnError(error -> {
+                            if (finished.compareAndSet(false, true)) {
+                                onResult(error instanceof GithubRateLimitExceededException, trial);
+                            }
+                        })
+                        .doOnCancel(() -> {
+                            // a cancelled trial call, e.g. a lost hedge, proves nothing, let the next one try
+                            if (trial && finished.compareAndSet(false, true)) {
+                                releaseTrial();
+                            }
+                        });
+            });
+        };
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("github.resilience.circuit.state", this, breaker -> breaker.state().ordinal())
+                .description("State of the GitHub circuit breaker, 0 closed, 1 open, 2 half open")
+                .register(registry);
+        FunctionCounter.builder("github.resilience.circuit.rejected", rejected, LongAdder::sum)
+                .description("GitHub calls failed at once because the circuit breaker was open")
+                .register(registry);
+        FunctionCounter.builder("github.resilience.circuit.transitions", transitions, LongAdder::sum)
+                .description("State changes of the GitHub circuit breaker")
+                .register(registry);
+    }
+
+    State state() {
+        synchronized (lock) {
+            return state;
+        }
+    }
+
+    // returns whether the permitted call is the half-open trial call
+    private boolean acquirePermission() {
+        synchronized (lock) {
+            if (state == State.OPEN && epochMillisClock.getAsLong() - openedAtMillis >= openDurationMillis) {
+                transition(State.HALF_OPEN);
+            }
+            if (state == State.CLOSED) {
+                return false;
+            }
+            if (state == State.HALF_OPEN && !trialInFlight) {
+                trialInFlight = true;
+                return true;
+            }
+
+            rejected.increment();
+            Instant retryAt = Instant.ofEpochMilli(state == State.OPEN
+                    ? openedAtMillis + openDurationMillis
+                    : epochMillisClock.getAsLong() + 1000);
+            throw new GithubUnavailableException("GitHub is unavailable, calls are suspended until it recovers", retryAt);
+        }
+    }
+
+    private void onResult(boolean success, boolean trial) {
+        synchronized (lock) {
+            if (trial) {
+                trialInFlight = false;
+                if (success) {
+                    resetWindow();
+                    transition(State.CLOSED);
+                } else {
+                    open();
+                }
+                return;
+            }
+            if (state != State.CLOSED) {
+                // calls started before the breaker opened do not count any more
+                return;
+            }
+
+            if (recorded == outcomes.length) {
+                failures -= outcomes[next] ? 1 : 0;
+            } else {
+                recorded++;
+            }
+            outcomes[next] = !success;
+            failures += success ? 0 : 1;
+            next = (next + 1) % outcomes.length;
+
+            if (recorded >= minimumCalls && failures * 100.0 / recorded >= failureRateThreshold) {
+                open();
+            }
+        }
+    }
+
+    private void releaseTrial() {
+        synchronized (lock) {
+            trialInFlight = false;
+        }
+    }
+
+    private void open() {
+        openedAtMillis = epochMillisClock.getAsLong();
+        resetWindow();
+        transition(State.OPEN);
+        log.warn("GithubCircuitBreaker::open GitHub is failing, suspending calls for {} ms", openDurationMillis);
+    }
+
+    private void resetWindow() {
+        recorded = 0;
+        failures = 0;
+        next = 0;
+    }
+
+    private void transition(State newState) {
+        if (state != newState) {
+            log.info("GithubCircuitBreaker::transition {} -> {}", state, newState);
+            state = newState;
+            transitions.increment();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.tomdud.githubservice.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Conditional request cache for GitHub GET calls.
+ * <p>
+ * Every successful response carrying an {@code ETag} is kept per request URI (each page of a paginated resource is
+ * its own entry). The next request for that URI is sent with {@code If-None-Match}; when GitHub answers
+ * {@code 304 Not Modified}, which does not count against the rate limit, the cached payload is replayed as a
+ * {@code 200} response and decoded into {@code RepositoryDTO}/{@code BranchDTO} as usual. Payloads are kept as
+ * immutable bytes rather than decoded objects, because the DTOs are mutated while a response is assembled.
+ * The number of entries is bounded, least recently used entries are evicted first.
+ */
+@Component
+public class GithubEtagCache implements MeterBinder {
+
+    private final Logger log = LoggerFactory.getLogger(GithubEtagCache.class);
+
+    private final int maxEntries;
+    private final Map<String, CachedResponse> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+
+    private volatile BiConsumer<String, CachedResponse> storeListener = (cacheKey, cachedResponse) -> { };
+
+    public GithubEtagCache(@Value("${webclient.api.github.etag-cache.max-entries:1000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > GithubEtagCache.this.maxEntries;
+            }
+        };
+    }
+
+    public ExchangeFilterFunction conditionalRequestFilter() {
+        return (request, next) -> Mono.defer(() -> {
+            if (maxEntries <= 0 || !HttpMethod.GET.equals(request.method())) {
+                return next.exchange(request);
+            }
+
+            String cacheKey = request.url().toString();
+            CachedResponse cachedResponse = get(cacheKey);
+
+            if (cachedResponse == null) {
+                misses.increment();
+                return next.exchange(request).map(response -> cacheOnComplete(cacheKey, response));
+            }
+
+            hits.increment();
+            ClientRequest conditionalRequest = ClientRequest.from(request)
+                    .header(HttpHeaders.IF_NONE_MATCH, cachedResponse.etag())
+                    .build();
+
+            return next.exchange(conditionalRequest).flatMap(response -> {
+                if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                    notModified.increment();
+                    log.info("GithubEtagCache::conditionalRequestFilter {} not modified, serving cached response", cacheKey);
+                    return response.releaseBody().thenReturn(replay(response, cachedResponse));
+                }
+                return Mono.just(cacheOnComplete(cacheKey, response));
+            });
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("github.etag.cache.size", this, cache -> cache.stats().size())
+                .description("GitHub responses cached with their ETag")
+                .register(registry);
+        FunctionCounter.builder("github.etag.cache.requests", hits, LongAdder::sum)
+                .description("GitHub calls sent with If-None-Match")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("github.etag.cache.requests", misses, LongAdder::sum)
+                .description("GitHub calls sent without a cached ETag")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("github.etag.cache.requests", notModified, LongAdder::sum)
+                .description("GitHub calls answered with 304 Not Modified and served from the cache")
+                .tag("result", "not_modified")
+                .register(registry);
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(entries.size(), hits.sum(), misses.sum(), notModified.sum());
+        }
+    }
+
+    private CachedResponse get(String cacheKey) {
+        synchronized (entries) {
+            return entries.get(cacheKey);
+        }
+    }
+
+    private void put(String cacheKey, CachedResponse cachedResponse) {
+        synchronized (entries) {
+            entries.put(cacheKey, cachedResponse);
+        }
+        storeListener.accept(cacheKey, cachedResponse);
+    }
+
+    /**
+     * Registers the listener notified of every response stored in the cache, restored entries excluded.
+     */
+    void onStore(BiConsumer<String, CachedResponse> storeListener) {
+        this.storeListener = storeListener;
+    }
+
+    /**
+     * Adds an entry kept from a previous run unless the key was cached in the meantime.
+     */
+    void restore(String cacheKey, CachedResponse cachedResponse) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        synchronized (entries) {
+            entries.putIfAbsent(cacheKey, cachedResponse);
+        }
+    }
+
+    // copies the body while it streams to the decoder and stores it once the response was fully read
+    private ClientResponse cacheOnComplete(String cacheKey, ClientResponse response) {
+        HttpHeaders headers = response.headers().asHttpHeaders();
+        String etag = headers.getETag();
+        if (!response.statusCode().isSameCodeAs(HttpStatus.OK) || etag == null) {
+            return response;
+        }
+
+        String contentType = headers.getFirst(HttpHeaders.CONTENT_TYPE);
+        String link = headers.getFirst(HttpHeaders.LINK);
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+
+        return response.mutate()
+                .body(body -> body
+                        .map(buffer -> {
+                            byte[] bytes = new byte[buffer.readableByteCount()];
+                            buffer.read(bytes);
+                            DataBufferUtils.release(buffer);
+                            payload.write(bytes, 0, bytes.length);
+                            return (DataBuffer) DefaultDataBufferFactory.sharedInstance.wrap(bytes);
+                        })
+                        .doOnComplete(() -> put(cacheKey, new CachedResponse(etag, contentType, link, payload.toByteArray()))))
+                .build();
+    }
+
+    private static ClientResponse replay(ClientResponse notModifiedResponse, CachedResponse cachedResponse) {
+        return notModifiedResponse.mutate()
+                .statusCode(HttpStatus.OK)
+                .headers(headers -> {
+                    headers.set(HttpHeaders.ETAG, cachedResponse.etag());
+                    if (cachedResponse.contentType() != null) {
+                        headers.set(HttpHeaders.CONTENT_TYPE, cachedResponse.contentType());
+                    }
+                    if (cachedResponse.link() != null) {
+                        headers.set(HttpHeaders.LINK, cachedResponse.link());
+                    }
+                })
+                .body(Flux.defer(() -> Flux.<DataBuffer>just(DefaultDataBufferFactory.sharedInstance.wrap(cachedResponse.body()))))
+                .build();
+    }
+
+    record CachedResponse(String etag, String contentType, String link, byte[] body) {
+    }
+
+    public record Stats(int size, long hits, long misses, long notModified) {
+    }
+}
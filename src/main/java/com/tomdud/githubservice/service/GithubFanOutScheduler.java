@@ -0,0 +1,222 @@
+package com.tomdud.githubservice.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Schedules the per-repository upstream calls of every controller request under one shared in-flight budget.
+ * <p>
+ * Each request may run at most {@link #perRequestConcurrency()} calls at once, and all requests together at most
+ * the current global limit; callers above the limit wait in a FIFO queue, so one user with hundreds of repositories
+ * cannot starve the others. The global limit follows an AIMD policy: it is halved when GitHub reports that
+ * {@code X-RateLimit-Remaining} is below the low watermark or when a response is slower than the latency threshold,
+ * and grows back by one with every healthy response.
+ */
+@Component
+public class GithubFanOutScheduler implements MeterBinder {
+
+    private static final String RATE_LIMIT_REMAINING_HEADER = "X-RateLimit-Remaining";
+    private static final long DECREASE_COOLDOWN_NANOS = Duration.ofSeconds(1).toNanos();
+
+    private final Logger log = LoggerFactory.getLogger(GithubFanOutScheduler.class);
+
+    private final int maxConcurrencyPerRequest;
+    private final int minInFlight;
+    private final int maxInFlight;
+    private final int rateLimitLowWatermark;
+    private final long latencyThresholdNanos;
+
+    private final Object lock = new Object();
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private int inFlight;
+    private int limit;
+    private long lastDecreaseNanos;
+
+    public GithubFanOutScheduler(
+            @Value("${webclient.api.github.fan-out.max-concurrency-per-request:8}") int maxConcurrencyPerRequest,
+            @Value("${webclient.api.github.fan-out.min-in-flight:4}") int minInFlight,
+            @Value("${webclient.api.github.fan-out.max-in-flight:64}") int maxInFlight,
+            @Value("${webclient.api.github.fan-out.rate-limit-low-watermark:200}") int rateLimitLowWatermark,
+            @Value("${webclient.api.github.fan-out.latency-threshold:2s}") Duration latencyThreshold
+    ) {
+        if (maxConcurrencyPerRequest < 1 || minInFlight < 1 || maxInFlight < minInFlight) {
+            throw new IllegalArgumentException("GithubFanOutScheduler requires 1 <= min-in-flight <= max-in-flight and max-concurrency-per-request >= 1");
+        }
+        this.maxConcurrencyPerRequest = maxConcurrencyPerRequest;
+        this.minInFlight = minInFlight;
+        this.maxInFlight = maxInFlight;
+        this.rateLimitLowWatermark = rateLimitLowWatermark;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.limit = maxInFlight;
+        this.lastDecreaseNanos = System.nanoTime() - DECREASE_COOLDOWN_NANOS;
+    }
+
+    /**
+     * Concurrency a single request may use for its fan-out, evaluated when the request is subscribed.
+     */
+    public int perRequestConcurrency() {
+        synchronized (lock) {
+            return Math.min(maxConcurrencyPerRequest, limit);
+        }
+    }
+
+    /**
+     * Defers subscription to {@code upstreamCall} until a slot of the global in-flight budget is free and gives the
+     * slot back when the call completes, fails or is cancelled.
+     */
+    public <T> Mono<T> schedule(Mono<T> upstreamCall) {
+        return Mono.usingWhen(
+                acquire(),
+                permit -> upstreamCall,
+                permit -> release(),
+                (permit, error) -> release(),
+                permit -> release()
+        );
+    }
+
+    /**
+     * Filter observing every GitHub response to adapt the global limit to rate limit headroom and latency.
+     */
+    public ExchangeFilterFunction rateLimitObserver() {
+        return (request, next) -> {
+            long startNanos = System.nanoTime();
+            return next.exchange(request)
+                    .doOnNext(response -> onResponse(response.headers().asHttpHeaders(), System.nanoTime() - startNanos));
+        };
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("github.fanout.in.flight", this, GithubFanOutScheduler::currentInFlight)
+                .description("Branch calls currently holding a slot of the shared in-flight budget")
+                .register(registry);
+        Gauge.builder("github.fanout.waiting", this, GithubFanOutScheduler::currentWaiting)
+                .description("Branch calls waiting for a slot of the shared in-flight budget")
+                .register(registry);
+        Gauge.builder("github.fanout.limit", this, GithubFanOutScheduler::currentLimit)
+                .description("Current adaptive in-flight limit")
+                .register(registry);
+    }
+
+    int currentLimit() {
+        synchronized (lock) {
+            return limit;
+        }
+    }
+
+    int currentInFlight() {
+        synchronized (lock) {
+            return inFlight;
+        }
+    }
+
+    int currentWaiting() {
+        synchronized (lock) {
+            return waiters.size();
+        }
+    }
+
+    void onResponse(HttpHeaders headers, long latencyNanos) {
+        boolean rateLimitLow = parseRemaining(headers) < rateLimitLowWatermark;
+        boolean slow = latencyNanos > latencyThresholdNanos;
+        List<Waiter> granted;
+
+        synchronized (lock) {
+            if (rateLimitLow || slow) {
+                long now = System.nanoTime();
+                if (now - lastDecreaseNanos >= DECREASE_COOLDOWN_NANOS && limit > minInFlight) {
+                    limit = Math.max(minInFlight, limit / 2);
+                    lastDecreaseNanos = now;
+                    log.warn("GithubFanOutScheduler::onResponse decreasing in-flight limit to {} (rate limit low: {}, slow response: {})",
+                            limit, rateLimitLow, slow);
+                }
+            } else if (limit < maxInFlight) {
+                limit++;
+            }
+            granted = drainWaiters();
+        }
+
+        granted.forEach(waiter -> waiter.sink.success(Boolean.TRUE));
+    }
+
+    private Mono<Boolean> acquire() {
+        return Mono.<Boolean>create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            boolean acquired;
+            synchronized (lock) {
+                acquired = waiters.isEmpty() && inFlight < limit;
+                if (acquired) {
+                    inFlight++;
+                } else {
+                    waiters.addLast(waiter);
+                }
+            }
+            if (acquired) {
+                sink.success(Boolean.TRUE);
+            } else {
+                sink.onCancel(() -> cancel(waiter));
+            }
+        })
+        // a slot granted to a waiter that was cancelled in the meantime is discarded by the sink, give it back
+        .doOnDiscard(Boolean.class, permit -> releaseSlot());
+    }
+
+    private Mono<Void> release() {
+        return Mono.fromRunnable(this::releaseSlot);
+    }
+
+    private void releaseSlot() {
+        List<Waiter> granted;
+        synchronized (lock) {
+            inFlight--;
+            granted = drainWaiters();
+        }
+        granted.forEach(waiter -> waiter.sink.success(Boolean.TRUE));
+    }
+
+    private void cancel(Waiter waiter) {
+        synchronized (lock) {
+            waiters.remove(waiter);
+        }
+    }
+
+    // must be called while holding the lock, sinks are completed by the caller after the lock is released
+    private List<Waiter> drainWaiters() {
+        List<Waiter> granted = new ArrayList<>();
+        while (inFlight < limit && !waiters.isEmpty()) {
+            granted.add(waiters.pollFirst());
+            inFlight++;
+        }
+        return granted;
+    }
+
+    private static int parseRemaining(HttpHeaders headers) {
+        String remaining = headers.getFirst(RATE_LIMIT_REMAINING_HEADER);
+        if (remaining == null) {
+            return Integer.MAX_VALUE;
+        }
+        try {
+            return Integer.parseInt(remaining.trim());
+        } catch (NumberFormatException numberFormatException) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    private record Waiter(MonoSink<Boolean> sink) {
+    }
+}
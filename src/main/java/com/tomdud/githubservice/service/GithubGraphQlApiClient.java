@@ -0,0 +1,238 @@
+package com.tomdud.githubservice.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.tomdud.githubservice.dto.BranchDTO;
+import com.tomdud.githubservice.dto.RepositoryDTO;
+import com.tomdud.githubservice.exception.GithubBadRequestException;
+import com.tomdud.githubservice.exception.GithubResourceNotFoundException;
+import com.tomdud.githubservice.exception.GithubUserNotFoundException;
+import com.tomdud.githubservice.exception.UnknownGithubApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * GraphQL v4 backend: repositories and the heads of their branches are fetched together, one upstream call per
+ * {@value #REPOSITORIES_PAGE_SIZE} repositories instead of one call per repository. Only repositories with more than
+ * {@value #BRANCHES_PAGE_SIZE} branches need follow-up calls for the remaining branches. A query without branches asks
+ * for repository names only and a branch cap shrinks the branches fetched with every repository. GitHub accepts GraphQL
+ * calls only with a token.
+ */
+@Component
+public class GithubGraphQlApiClient implements GithubApiClient {
+
+    private static final int REPOSITORIES_PAGE_SIZE = 100;
+    private static final int BRANCHES_PAGE_SIZE = 100;
+
+    private static final String REPOSITORIES_QUERY = """
+            query($login: String!, $after: String, $branches: Int!) {
+              repositoryOwner(login: $login) {
+                repositories(first: %d, after: $after, isFork: false, privacy: PUBLIC, ownerAffiliations: OWNER) {
+                  pageInfo { hasNextPage endCursor }
+                  nodes {
+                    name
+                    owner { login }
+                    refs(refPrefix: "refs/heads/", first: $branches) {
+                      pageInfo { hasNextPage endCursor }
+                      nodes { name target { oid } }
+                    }
+                  }
+                }
+              }
+            }
+            """.formatted(REPOSITORIES_PAGE_SIZE);
+
+    private static final String REPOSITORY_NAMES_QUERY = """
+            query($login: String!, $after: String) {
+              repositoryOwner(login: $login) {
+                repositories(first: %d, after: $after, isFork: false, privacy: PUBLIC, ownerAffiliations: OWNER) {
+                  pageInfo { hasNextPage endCursor }
+                  nodes {
+                    name
+                    owner { login }
+                  }
+                }
+              }
+            }
+            """.formatted(REPOSITORIES_PAGE_SIZE);
+
+    private static final String BRANCHES_QUERY = """
+            query($owner: String!, $name: String!, $after: String) {
+              repository(owner: $owner, name: $name) {
+                refs(refPrefix: "refs/heads/", first: %d, after: $after) {
+                  pageInfo { hasNextPage endCursor }
+                  nodes { name target { oid } }
+                }
+              }
+            }
+            """.formatted(BRANCHES_PAGE_SIZE);
+
+    private final Logger log = LoggerFactory.getLogger(GithubGraphQlApiClient.class);
+    private final WebClient webClient;
+    private final GithubFanOutScheduler fanOutScheduler;
+    private final String graphQlPath;
+
+    public GithubGraphQlApiClient(
+            WebClient githubWebClient,
+            GithubFanOutScheduler fanOutScheduler,
+            @Value("${webclient.api.github.graphql-path:/graphql}") String graphQlPath
+    ) {
+        this.webClient = githubWebClient;
+        this.fanOutScheduler = fanOutScheduler;
+        this.graphQlPath = graphQlPath;
+    }
+
+    @Override
+    public Flux<RepositoryDTO> getUserRepositories(String username, GithubRepositoriesQuery query) {
+        log.info("GithubGraphQlApiClient::getUserRepositories for username {} - send request to GitHub API {}", username, graphQlPath);
+
+        return getRepositoriesPage(username, null, query)
+                .expand(repositories -> hasNextPage(repositories)
+                        ? getRepositoriesPage(username, endCursor(repositories), query)
+                        : Mono.empty())
+                .concatMapIterable(repositories -> repositories.path("nodes"))
+                .filter(repositoryNode -> query.matchesRepository(repositoryNode.path("name").asText()))
+                .concatMap(repositoryNode -> toRepository(username, repositoryNode, query));
+    }
+
+    private Mono<JsonNode> getRepositoriesPage(String username, String after, GithubRepositoriesQuery query) {
+        boolean withBranches = query.branches() && !Integer.valueOf(0).equals(query.maxBranches());
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("login", username);
+        variables.put("after", after);
+        if (withBranches) {
+            // without a branch filter the first maxBranches branches are all that is needed
+            variables.put("branches", query.maxBranches() != null && query.allBranchNames()
+                    ? Math.min(query.maxBranches(), BRANCHES_PAGE_SIZE)
+                    : BRANCHES_PAGE_SIZE);
+        }
+
+        return execute(withBranches ? REPOSITORIES_QUERY : REPOSITORY_NAMES_QUERY, variables, () -> {
+            log.error("GithubGraphQlApiClient::getRepositoriesPage Username with name {} not found on GitHub", username);
+            return new GithubUserNotFoundException(String.format("Username with name %s not found on GitHub", username));
+        }).flatMap(data -> {
+            JsonNode repositoryOwner = data.path("repositoryOwner");
+            if (repositoryOwner.isMissingNode() || repositoryOwner.isNull()) {
+                log.error("GithubGraphQlApiClient::getRepositoriesPage Username with name {} not found on GitHub", username);
+                return Mono.error(new GithubUserNotFoundException(String.format("Username with name %s not found on GitHub", username)));
+            }
+            return Mono.just(repositoryOwner.path("repositories"));
+        });
+    }
+
+    private Mono<RepositoryDTO> toRepository(String username, JsonNode repositoryNode, GithubRepositoriesQuery query) {
+        RepositoryDTO repository = new RepositoryDTO();
+        repository.setRepositoryName(repositoryNode.path("name").asText());
+        repository.setRepositoryOwner(repositoryNode.path("owner").path("login").asText());
+        repository.setFork(false);
+
+        JsonNode refs = repositoryNode.path("refs");
+        if (refs.isMissingNode()) {
+            repository.setBranches(query.project(List.of()));
+            return Mono.just(repository);
+        }
+
+        Flux<BranchDTO> firstBranches = Flux.fromIterable(refs.path("nodes")).map(GithubGraphQlApiClient::toBranch);
+        Flux<BranchDTO> branches = (hasNextPage(refs)
+                ? Flux.concat(firstBranches, Flux.defer(() -> getRemainingBranches(username, repository.getRepositoryOwner(), repository.getRepositoryName(), endCursor(refs))))
+                : firstBranches)
+                .filter(branch -> query.matchesBranch(branch.getName()));
+        if (query.maxBranches() != null) {
+            // the follow-up calls are not sent once enough branches were taken
+            branches = branches.take(query.maxBranches());
+        }
+
+        return branches.collectList().map(branchesList -> {
+            repository.setBranches(branchesList);
+            return repository;
+        });
+    }
+
+    private Flux<BranchDTO> getRemainingBranches(String username, String owner, String repositoryName, String after) {
+        log.info(
+                "GithubGraphQlApiClient::getRemainingBranches for username {} and repository {} - send request to GitHub API {}",
+                username, repositoryName, graphQlPath
+        );
+
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("owner", owner);
+        variables.put("name", repositoryName);
+        variables.put("after", after);
+
+        // follow-up calls share the in-flight budget of the REST branch calls, one permit per page
+        Mono<JsonNode> page = fanOutScheduler.schedule(execute(BRANCHES_QUERY, variables, () -> {
+            log.error(
+                    "GithubGraphQlApiClient::getRemainingBranches Username {} or repository {} not found on GitHub",
+                    username, repositoryName
+            );
+            return new GithubResourceNotFoundException(
+                    String.format("Username %s or repository %s not found on GitHub", username, repositoryName));
+        }));
+        return page.flatMapMany(data -> {
+            JsonNode refs = data.path("repository").path("refs");
+            Flux<BranchDTO> branches = Flux.fromIterable(refs.path("nodes")).map(GithubGraphQlApiClient::toBranch);
+            return hasNextPage(refs)
+                    ? Flux.concat(branches, getRemainingBranches(username, owner, repositoryName, endCursor(refs)))
+                    : branches;
+        });
+    }
+
+    private Mono<JsonNode> execute(String query, Map<String, Object> variables, Supplier<RuntimeException> notFoundException) {
+        return webClient.post()
+                .uri(graphQlPath)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("query", query, "variables", variables))
+                .retrieve()
+                .onStatus(HttpStatusCode::is4xxClientError, clientErrorResponse -> {
+                    log.error("GithubGraphQlApiClient::execute GithubBadRequestException, probably missing token or reach limit of requests");
+                    return Mono.error(new GithubBadRequestException("GithubBadRequestException, you probably reach limit of requests"));
+                })
+                .onStatus(HttpStatusCode::isError, clientErrorResponse -> {
+                    log.error("GithubGraphQlApiClient::execute GithubApi exception, status code from Github - {}", clientErrorResponse.statusCode().value());
+                    return Mono.error(new UnknownGithubApiException(String.format("Unknown GithubApi exception, status code from Github - %d", clientErrorResponse.statusCode().value())));
+                })
+                .bodyToMono(JsonNode.class)
+                .flatMap(body -> {
+                    for (JsonNode error : body.path("errors")) {
+                        String type = error.path("type").asText();
+                        if ("NOT_FOUND".equals(type)) {
+                            return Mono.error(notFoundException.get());
+                        }
+                        if ("RATE_LIMITED".equals(type)) {
+                            log.error("GithubGraphQlApiClient::execute GithubBadRequestException, probably reach limit of requests");
+                            return Mono.error(new GithubBadRequestException("GithubBadRequestException, you probably reach limit of requests"));
+                        }
+                        log.error("GithubGraphQlApiClient::execute GithubApi exception, error from Github - {}", error.path("message").asText());
+                        return Mono.error(new UnknownGithubApiException(String.format("Unknown GithubApi exception, error from Github - %s", error.path("message").asText())));
+                    }
+                    return Mono.just(body.path("data"));
+                });
+    }
+
+    private static BranchDTO toBranch(JsonNode refNode) {
+        BranchDTO branch = new BranchDTO();
+        branch.setName(refNode.path("name").asText());
+        branch.setLastCommitSha(refNode.path("target").path("oid").asText());
+        return branch;
+    }
+
+    private static boolean hasNextPage(JsonNode connection) {
+        return connection.path("pageInfo").path("hasNextPage").asBoolean(false);
+    }
+
+    private static String endCursor(JsonNode connection) {
+        return connection.path("pageInfo").path("endCursor").asText();
+    }
+}
@@ -0,0 +1,151 @@
+package com.tomdud.githubservice.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends a second, hedged copy of a GitHub GET call when the first one has not answered within the recent latency
+ * percentile, and uses whichever response arrives first; the slower call is cancelled, or its response released when
+ * it arrived at the same time.
+ * <p>
+ * The hedge delay is the {@code percentile} of the last {@value #WINDOW_SIZE} response times (until the response
+ * headers arrive, or until the call was cancelled), but never less than {@code min-delay}; no call is hedged before
+ * {@value #MIN_SAMPLES} responses were seen. Hedged calls cost rate limit, so at most {@code max-ratio} of all calls
+ * may be hedged.
+ */
+@Component
+public class GithubHedgingPolicy implements MeterBinder {
+
+    private static final int WINDOW_SIZE = 256;
+    private static final int MIN_SAMPLES = 32;
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double maxRatio;
+
+    private final Object lock = new Object();
+    private final long[] latencies = new long[WINDOW_SIZE];
+    private long samples;
+    private long hedgeDelayNanos = -1;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder hedgesSent = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+    private final LongAdder hedgesSkipped = new LongAdder();
+
+    public GithubHedgingPolicy(
+            @Value("${webclient.api.github.resilience.hedge.enabled:true}") boolean enabled,
+            @Value("${webclient.api.github.resilience.hedge.percentile:95}") double percentile,
+            @Value("${webclient.api.github.resilience.hedge.min-delay:100ms}") Duration minDelay,
+            @Value("${webclient.api.github.resilience.hedge.max-ratio:0.1}") double maxRatio
+    ) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxRatio = maxRatio;
+    }
+
+    public ExchangeFilterFunction hedgingFilter() {
+        return (request, next) -> {
+            if (!enabled || !HttpMethod.GET.equals(request.method())) {
+                return next.exchange(request);
+            }
+
+            return Mono.defer(() -> {
+                calls.increment();
+                long startNanos = System.nanoTime();
+                AtomicBoolean answered = new AtomicBoolean();
+                Mono<ClientResponse> primary = next.exchange(request)
+                        .flatMap(response -> firstAnswer(answered, response))
+                        .doOnNext(response -> recordLatency(System.nanoTime() - startNanos))
+                        // overtaken by its hedge the call took at least this long, leaving it out would hide the slow tail
+                        .doOnCancel(() -> recordLatency(System.nanoTime() - startNanos));
+
+                long delayNanos = currentHedgeDelayNanos();
+                if (delayNanos < 0) {
+                    return primary;
+                }
+
+                // a failed or skipped hedge never wins, the primary call decides then
+                Mono<ClientResponse> hedge = Mono.delay(Duration.ofNanos(delayNanos))
+                        .filter(tick -> tryAcquireHedge())
+                        .flatMap(tick -> next.exchange(request))
+                        .flatMap(response -> firstAnswer(answered, response))
+                        .doOnNext(response -> hedgesWon.increment())
+                        .onErrorResume(error -> Mono.never())
+                        .switchIfEmpty(Mono.never());
+
+                return Mono.firstWithSignal(primary, hedge);
+            });
+        };
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("github.resilience.hedge.delay", this, policy -> policy.currentHedgeDelayNanos() / 1e9)
+                .description("Current delay before a GitHub call is hedged, negative until enough calls were seen")
+                .baseUnit("seconds")
+                .register(registry);
+        registerHedgeCounter(registry, hedgesSent, "sent");
+        registerHedgeCounter(registry, hedgesWon, "won");
+        registerHedgeCounter(registry, hedgesSkipped, "skipped");
+    }
+
+    long currentHedgeDelayNanos() {
+        synchronized (lock) {
+            return hedgeDelayNanos;
+        }
+    }
+
+    void recordLatency(long latencyNanos) {
+        synchronized (lock) {
+            latencies[(int) (samples % WINDOW_SIZE)] = latencyNanos;
+            samples++;
+            if (samples >= MIN_SAMPLES && samples % RECOMPUTE_EVERY == 0) {
+                long[] window = Arrays.copyOf(latencies, (int) Math.min(samples, WINDOW_SIZE));
+                Arrays.sort(window);
+                int index = (int) Math.min(window.length - 1, Math.ceil(window.length * percentile / 100.0) - 1);
+                hedgeDelayNanos = Math.max(minDelayNanos, window[Math.max(0, index)]);
+            }
+        }
+    }
+
+    // when both calls answer at once only the first response is used, the body of the other one is released
+    private static Mono<ClientResponse> firstAnswer(AtomicBoolean answered, ClientResponse response) {
+        if (answered.compareAndSet(false, true)) {
+            return Mono.just(response);
+        }
+        return response.releaseBody().then(Mono.never());
+    }
+
+    private boolean tryAcquireHedge() {
+        if (hedgesSent.sum() + 1 > calls.sum() * maxRatio) {
+            hedgesSkipped.increment();
+            return false;
+        }
+        hedgesSent.increment();
+        return true;
+    }
+
+    private static void registerHedgeCounter(MeterRegistry registry, LongAdder counter, String result) {
+        FunctionCounter.builder("github.resilience.hedges", counter, LongAdder::sum)
+                .description("Hedged GitHub calls by result")
+                .tag("result", result)
+                .register(registry);
+    }
+}
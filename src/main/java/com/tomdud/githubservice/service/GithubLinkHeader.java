@@ -0,0 +1,32 @@
+package com.tomdud.githubservice.service;
+
+import org.springframework.http.HttpHeaders;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parser for the GitHub pagination {@code Link} header, e.g.
+ * {@code <https://api.github.com/user/1/repos?per_page=100&page=2>; rel="next", <...>; rel="last"}.
+ */
+final class GithubLinkHeader {
+
+    private static final Pattern LINK_PATTERN = Pattern.compile("<([^>]+)>\\s*;\\s*rel=\"([^\"]+)\"");
+
+    private GithubLinkHeader() {
+    }
+
+    static Optional<URI> nextPage(HttpHeaders headers) {
+        for (String linkHeader : headers.getOrEmpty(HttpHeaders.LINK)) {
+            Matcher matcher = LINK_PATTERN.matcher(linkHeader);
+            while (matcher.find()) {
+                if ("next".equals(matcher.group(2))) {
+                    return Optional.of(URI.create(matcher.group(1)));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,428 @@
+package com.tomdud.githubservice.service;
+
+import com.tomdud.githubservice.dto.BranchDTO;
+import com.tomdud.githubservice.dto.RepositoryDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the assembled repository lists of {@link GithubRepositoriesCache} and the ETag responses of
+ * {@link GithubEtagCache} in a local append-only file, so a restarted node answers from warm caches right away and
+ * revalidates against GitHub in the background.
+ * <p>
+ * Every stored list or response is appended as one binary record off the request path, on a single writer thread.
+ * The file is read once the application is ready, the last record of every key wins and records older than
+ * {@code max-age} are skipped. When the file holds more than twice as many records as live keys it is compacted by
+ * rewriting the live records into a new file that replaces the old one atomically. A torn record at the end of the
+ * file, e.g. after a crash, is cut off when the file is read.
+ */
+@Component
+public class GithubPersistentCache {
+
+    private static final int MAGIC = 0x47485343;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    private static final byte REPOSITORIES_RECORD = 1;
+    private static final byte ETAG_RECORD = 2;
+    private static final int MIN_RECORDS_BEFORE_COMPACTION = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(GithubPersistentCache.class);
+
+    private final boolean enabled;
+    private final Path path;
+    private final long maxAgeMillis;
+    private final GithubRepositoriesCache repositoriesCache;
+    private final GithubEtagCache etagCache;
+    private final LongSupplier epochMillisClock;
+    private final Scheduler writer;
+
+    // only accessed on the writer thread
+    private final Set<String> liveKeys = new HashSet<>();
+    private long records;
+    private DataOutputStream output;
+
+    @Autowired
+    public GithubPersistentCache(
+            @Value("${webclient.api.github.persistent-cache.enabled:false}") boolean enabled,
+            @Value("${webclient.api.github.persistent-cache.path:github-cache.bin}") Path path,
+            @Value("${webclient.api.github.persistent-cache.max-age:24h}") Duration maxAge,
+            GithubRepositoriesCache repositoriesCache,
+            GithubEtagCache etagCache
+    ) {
+        this(enabled, path, maxAge, repositoriesCache, etagCache, System::currentTimeMillis);
+    }
+
+    GithubPersistentCache(
+            boolean enabled,
+            Path path,
+            Duration maxAge,
+            GithubRepositoriesCache repositoriesCache,
+            GithubEtagCache etagCache,
+            LongSupplier epochMillisClock
+    ) {
+        this.enabled = enabled;
+        this.path = path;
+        this.maxAgeMillis = maxAge.toMillis();
+        this.repositoriesCache = repositoriesCache;
+        this.etagCache = etagCache;
+        this.epochMillisClock = epochMillisClock;
+        this.writer = enabled ? Schedulers.newSingle("github-persistent-cache") : null;
+
+        if (enabled) {
+            repositoriesCache.onLoad((key, repositories) -> {
+                // projections of a user are cheap to load again, only full responses are kept
+                if (key.indexOf(GithubRepositoriesQuery.KEY_SEPARATOR) < 0) {
+                    submit(() -> append(repositoriesRecord(key, repositories)));
+                }
+            });
+            etagCache.onStore((cacheKey, cachedResponse) -> submit(() -> append(etagRecord(cacheKey, cachedResponse))));
+        }
+    }
+
+    /**
+     * Restores the records of the previous run on the writer thread, so startup is not delayed and every record
+     * stored in the meantime is appended after the restored ones.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        if (enabled) {
+            submit(this::restoreNow);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled) {
+            return;
+        }
+        submit(this::closeOutput);
+        writer.disposeGracefully().timeout(Duration.ofSeconds(5), Mono.empty()).block();
+    }
+
+    void restoreNow() {
+        // records appended before the application was ready are read back together with the older ones
+        closeOutput();
+        Map<String, Record> live = read();
+        long now = epochMillisClock.getAsLong();
+        live.values().removeIf(record -> now - record.storedEpochMillis() > maxAgeMillis);
+
+        for (Record record : live.values()) {
+            if (record instanceof RepositoriesRecord repositoriesRecord) {
+                repositoriesCache.restore(repositoriesRecord.key(), repositoriesRecord.repositories());
+            } else if (record instanceof EtagRecord etagRecord) {
+                etagCache.restore(etagRecord.key(), etagRecord.cachedResponse());
+            }
+        }
+        liveKeys.addAll(live.keySet());
+        log.info("GithubPersistentCache::restore restored {} entries from {}", live.size(), path);
+
+        if (records > 2L * liveKeys.size()) {
+            compact(live);
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            writer.schedule(task);
+        } catch (RejectedExecutionException rejectedExecutionException) {
+            log.warn("GithubPersistentCache::submit writer is shut down, dropping write to {}", path);
+        }
+    }
+
+    private void append(Record record) {
+        try {
+            if (output == null) {
+                output = openForAppend();
+            }
+            write(output, record);
+            output.flush();
+            records++;
+            liveKeys.add(record.recordKey());
+
+            if (records >= MIN_RECORDS_BEFORE_COMPACTION && records > 2L * liveKeys.size()) {
+                closeOutput();
+                compact(read());
+            }
+        } catch (IOException ioException) {
+            log.error("GithubPersistentCache::append could not write to {}: {}", path, ioException.getMessage());
+            closeOutput();
+        }
+    }
+
+    // reads every complete record, the last record of a key wins; a torn tail is truncated
+    private Map<String, Record> read() {
+        Map<String, Record> live = new LinkedHashMap<>();
+        records = 0;
+        if (!Files.exists(path)) {
+            return live;
+        }
+
+        long validLength = HEADER_SIZE;
+        try (CountingInputStream counting = new CountingInputStream(new BufferedInputStream(Files.newInputStream(path)));
+             DataInputStream input = new DataInputStream(counting)) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                log.warn("GithubPersistentCache::read {} has an unknown format, ignoring it", path);
+                Files.delete(path);
+                return live;
+            }
+            while (true) {
+                Record record = readRecord(input);
+                live.put(record.recordKey(), record);
+                records++;
+                validLength = counting.count;
+            }
+        } catch (EOFException endOfFile) {
+            truncate(validLength);
+        } catch (IOException ioException) {
+            log.error("GithubPersistentCache::read could not read {}: {}", path, ioException.getMessage());
+            truncate(validLength);
+        }
+        return live;
+    }
+
+    private void compact(Map<String, Record> live) {
+        Path compacted = path.resolveSibling(path.getFileName() + ".compacting");
+        long now = epochMillisClock.getAsLong();
+        int written = 0;
+
+        try (DataOutputStream compactedOutput = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(compacted)))) {
+            writeHeader(compactedOutput);
+            for (Record record : live.values()) {
+                if (now - record.storedEpochMillis() <= maxAgeMillis) {
+                    write(compactedOutput, record);
+                    written++;
+                }
+            }
+        } catch (IOException ioException) {
+            log.error("GithubPersistentCache::compact could not write {}: {}", compacted, ioException.getMessage());
+            return;
+        }
+
+        try {
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("GithubPersistentCache::compact rewrote {} records into {} in {}", records, written, path);
+            records = written;
+            liveKeys.retainAll(live.keySet());
+        } catch (IOException ioException) {
+            log.error("GithubPersistentCache::compact could not replace {}: {}", path, ioException.getMessage());
+        }
+    }
+
+    private DataOutputStream openForAppend() throws IOException {
+        boolean newFile = !Files.exists(path) || Files.size(path) == 0;
+        DataOutputStream appendOutput = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        if (newFile) {
+            writeHeader(appendOutput);
+        }
+        return appendOutput;
+    }
+
+    private void closeOutput() {
+        if (output == null) {
+            return;
+        }
+        try {
+            output.close();
+        } catch (IOException ioException) {
+            log.error("GithubPersistentCache::closeOutput could not close {}: {}", path, ioException.getMessage());
+        }
+        output = null;
+    }
+
+    private void truncate(long validLength) {
+        boolean headerMissing = false;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER_SIZE) {
+                headerMissing = true;
+            } else if (channel.size() > validLength) {
+                log.warn("GithubPersistentCache::truncate cutting torn record at the end of {}", path);
+                channel.truncate(validLength);
+            }
+        } catch (IOException ioException) {
+            log.error("GithubPersistentCache::truncate could not truncate {}: {}", path, ioException.getMessage());
+            return;
+        }
+
+        if (headerMissing) {
+            // not even the header was written, start over with a new file
+            try {
+                Files.delete(path);
+            } catch (IOException ioException) {
+                log.error("GithubPersistentCache::truncate could not delete {}: {}", path, ioException.getMessage());
+            }
+        }
+    }
+
+    private RepositoriesRecord repositoriesRecord(String key, List<RepositoryDTO> repositories) {
+        return new RepositoriesRecord(key, epochMillisClock.getAsLong(), List.copyOf(repositories));
+    }
+
+    private EtagRecord etagRecord(String cacheKey, GithubEtagCache.CachedResponse cachedResponse) {
+        return new EtagRecord(cacheKey, epochMillisClock.getAsLong(), cachedResponse);
+    }
+
+    private static void writeHeader(DataOutputStream output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+    }
+
+    private static void write(DataOutputStream output, Record record) throws IOException {
+        if (record instanceof RepositoriesRecord repositoriesRecord) {
+            output.writeByte(REPOSITORIES_RECORD);
+            output.writeUTF(repositoriesRecord.key());
+            output.writeLong(repositoriesRecord.storedEpochMillis());
+            output.writeInt(repositoriesRecord.repositories().size());
+            for (RepositoryDTO repository : repositoriesRecord.repositories()) {
+                writeNullableString(output, repository.getRepositoryName());
+                writeNullableString(output, repository.getRepositoryOwner());
+                writeNullableString(output, repository.getPushedAt());
+                List<BranchDTO> branches = repository.getBranches() != null ? repository.getBranches() : List.of();
+                output.writeInt(branches.size());
+                for (BranchDTO branch : branches) {
+                    writeNullableString(output, branch.getName());
+                    writeNullableString(output, branch.getLastCommitSha());
+                }
+            }
+        } else if (record instanceof EtagRecord etagRecord) {
+            GithubEtagCache.CachedResponse cachedResponse = etagRecord.cachedResponse();
+            output.writeByte(ETAG_RECORD);
+            output.writeUTF(etagRecord.key());
+            output.writeLong(etagRecord.storedEpochMillis());
+            writeNullableString(output, cachedResponse.etag());
+            writeNullableString(output, cachedResponse.contentType());
+            writeNullableString(output, cachedResponse.link());
+            output.writeInt(cachedResponse.body().length);
+            output.write(cachedResponse.body());
+        }
+    }
+
+    private static Record readRecord(DataInputStream input) throws IOException {
+        byte type = input.readByte();
+        String key = input.readUTF();
+        long storedEpochMillis = input.readLong();
+
+        if (type == REPOSITORIES_RECORD) {
+            int repositoriesCount = input.readInt();
+            List<RepositoryDTO> repositories = new ArrayList<>(repositoriesCount);
+            for (int i = 0; i < repositoriesCount; i++) {
+                RepositoryDTO repository = new RepositoryDTO();
+                repository.setRepositoryName(readNullableString(input));
+                repository.setRepositoryOwner(readNullableString(input));
+                repository.setPushedAt(readNullableString(input));
+                int branchesCount = input.readInt();
+                List<BranchDTO> branches = new ArrayList<>(branchesCount);
+                for (int j = 0; j < branchesCount; j++) {
+                    BranchDTO branch = new BranchDTO();
+                    branch.setName(readNullableString(input));
+                    branch.setLastCommitSha(readNullableString(input));
+                    branches.add(branch);
+                }
+                repository.setBranches(branches);
+                repositories.add(repository);
+            }
+            return new RepositoriesRecord(key, storedEpochMillis, repositories);
+        }
+        if (type == ETAG_RECORD) {
+            String etag = readNullableString(input);
+            String contentType = readNullableString(input);
+            String link = readNullableString(input);
+            byte[] body = new byte[input.readInt()];
+            input.readFully(body);
+            return new EtagRecord(key, storedEpochMillis, new GithubEtagCache.CachedResponse(etag, contentType, link, body));
+        }
+        throw new IOException("Unknown record type " + type);
+    }
+
+    private static void writeNullableString(DataOutputStream output, String value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    private sealed interface Record permits RepositoriesRecord, EtagRecord {
+        String key();
+
+        long storedEpochMillis();
+
+        // repository lists and ETag responses are keyed by username and URL, prefixed so they never collide
+        String recordKey();
+    }
+
+    private record RepositoriesRecord(String key, long storedEpochMillis, List<RepositoryDTO> repositories) implements Record {
+        @Override
+        public String recordKey() {
+            return "repositories:" + key;
+        }
+    }
+
+    private record EtagRecord(String key, long storedEpochMillis, GithubEtagCache.CachedResponse cachedResponse) implements Record {
+        @Override
+        public String recordKey() {
+            return "etag:" + key;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream input) {
+            super(input);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = super.read(bytes, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
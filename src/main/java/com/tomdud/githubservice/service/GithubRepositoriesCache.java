@@ -0,0 +1,412 @@
+package com.tomdud.githubservice.service;
+
+import com.tomdud.githubservice.dto.RepositoryDTO;
+import com.tomdud.githubservice.exception.GithubUnavailableException;
+import com.tomdud.githubservice.exception.UnknownGithubApiException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-process cache of assembled repository lists with single-flight loading.
+ * <p>
+ * Concurrent requests for a key that is not cached share one in-flight upstream {@link Flux}, which is replayed to
+ * every subscriber and cancelled when the last of them cancels. Entries are fresh for {@code ttl}; during the following
+ * {@code stale-ttl} they are still served while a single background refresh replaces them. Failed and cancelled loads
+ * are never cached. When GitHub is unavailable, the expired list is served instead of the error until a load
+ * succeeds. The number of entries is bounded, least recently used entries are evicted first.
+ * <p>
+ * The shared load is not paced by its slowest subscriber: the replay requests a prefetch of 256 repositories and
+ * replenishes it as they are consumed, so a streaming client that stops reading holds back the load only once it is
+ * that far behind, and the entry itself is complete only once the whole list was loaded. Backpressure reaches the
+ * upstream calls end to end only with {@code max-entries} set to {@code 0}.
+ */
+@Component
+public class GithubRepositoriesCache implements MeterBinder {
+
+    private static final int MAX_DERIVED_VALUES = 32;
+
+    private final Logger log = LoggerFactory.getLogger(GithubRepositoriesCache.class);
+
+    private final long ttlNanos;
+    private final long staleTtlNanos;
+    private final int maxEntries;
+    private final LongSupplier nanoClock;
+    private final Map<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder derivedHits = new LongAdder();
+    private final LongAdder derivedMisses = new LongAdder();
+
+    private volatile BiConsumer<String, List<RepositoryDTO>> loadListener = (key, repositories) -> { };
+
+    @Autowired
+    public GithubRepositoriesCache(
+            @Value("${webclient.api.github.response-cache.ttl:60s}") Duration ttl,
+            @Value("${webclient.api.github.response-cache.stale-ttl:5m}") Duration staleTtl,
+            @Value("${webclient.api.github.response-cache.max-entries:500}") int maxEntries
+    ) {
+        this(ttl, staleTtl, maxEntries, System::nanoTime);
+    }
+
+    GithubRepositoriesCache(Duration ttl, Duration staleTtl, int maxEntries, LongSupplier nanoClock) {
+        this.ttlNanos = ttl.toNanos();
+        this.staleTtlNanos = staleTtl.toNanos();
+        this.maxEntries = maxEntries;
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                boolean evict = size() > GithubRepositoriesCache.this.maxEntries;
+                if (evict) {
+                    evictions.increment();
+                }
+                return evict;
+            }
+        };
+    }
+
+    public Flux<RepositoryDTO> get(String key, Supplier<Flux<RepositoryDTO>> loader) {
+        if (maxEntries <= 0) {
+            return loader.get();
+        }
+
+        return Flux.defer(() -> resolve(key, loader).repositories);
+    }
+
+    /**
+     * Returns {@code derive} applied to the cached list of {@code key}, e.g. its encoded response body. The derived
+     * value is computed once per loaded list and dropped together with it, so it never outlives the data it was
+     * derived from; {@code derivedKey} tells apart different values derived from the same list.
+     */
+    public <T> Mono<T> getDerived(String key, Supplier<Flux<RepositoryDTO>> loader, String derivedKey, Function<List<RepositoryDTO>, T> derive) {
+        if (maxEntries <= 0) {
+            return loader.get().collectList().map(derive);
+        }
+
+        return Mono.defer(() -> {
+            Entry entry = resolve(key, loader);
+            List<RepositoryDTO> values = entry.values;
+            if (values != null) {
+                return Mono.just(derive(entry, derivedKey, values, derive));
+            }
+            // a failed load answered with the expired list is not cached, neither is what is derived from it
+            return entry.repositories.collectList().map(repositories -> entry.completed.get()
+                    ? derive(entry, derivedKey, repositories, derive)
+                    : derive.apply(repositories));
+        });
+    }
+
+    /**
+     * Returns the elements of {@code derive} applied to the cached list of {@code key} like
+     * {@link #getDerived(String, Supplier, String, Function)} once that list is loaded. While it is still loading the
+     * list is streamed instead, with {@code map} applied to every repository as it arrives.
+     */
+    public <T> Flux<T> getDerivedElements(String key, Supplier<Flux<RepositoryDTO>> loader, String derivedKey,
+                                          Function<List<RepositoryDTO>, List<? extends T>> derive,
+                                          Function<RepositoryDTO, ? extends T> map) {
+        if (maxEntries <= 0) {
+            return loader.get().map(map);
+        }
+
+        return Flux.defer(() -> {
+            Entry entry = resolve(key, loader);
+            List<RepositoryDTO> values = entry.values;
+            if (values != null) {
+                return Flux.fromIterable(derive(entry, derivedKey, values, derive));
+            }
+            return entry.repositories.map(map);
+        });
+    }
+
+    /**
+     * Returns {@code derive} applied to the list of {@code key} like
+     * {@link #getDerived(String, Supplier, String, Function)}, but only while that list is cached and fresh. Completes
+     * empty otherwise, without loading anything.
+     */
+    public <T> Mono<T> getDerivedIfFresh(String key, String derivedKey, Function<List<RepositoryDTO>, T> derive) {
+        if (maxEntries <= 0) {
+            return Mono.empty();
+        }
+
+        return Mono.defer(() -> {
+            Entry entry;
+            synchronized (entries) {
+                entry = entries.get(key);
+                if (entry == null || !entry.completed.get() || entry.restored
+                        || nanoClock.getAsLong() - entry.createdNanos >= entry.ttlNanos) {
+                    return Mono.empty();
+                }
+                hits.increment();
+            }
+            return Mono.just(derive(entry, derivedKey, entry.values, derive));
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T derive(Entry entry, String derivedKey, List<RepositoryDTO> values, Function<List<RepositoryDTO>, T> derive) {
+        Object derivedValue = entry.derived.get(derivedKey);
+        if (derivedValue != null) {
+            derivedHits.increment();
+            return (T) derivedValue;
+        }
+        derivedMisses.increment();
+        // projections are derived per query, a list keeps only the first few of them
+        if (entry.derived.size() >= MAX_DERIVED_VALUES) {
+            return derive.apply(values);
+        }
+        return (T) entry.derived.computeIfAbsent(derivedKey, ignored -> derive.apply(values));
+    }
+
+    private Entry resolve(String key, Supplier<Flux<RepositoryDTO>> loader) {
+        long now = nanoClock.getAsLong();
+        Entry entry;
+        boolean refresh = false;
+
+        synchronized (entries) {
+            entry = entries.get(key);
+            long age = entry != null ? now - entry.createdNanos : Long.MAX_VALUE;
+
+            if (entry != null && !entry.completed.get()) {
+                coalesced.increment();
+            } else if (entry != null && !entry.restored && age < entry.ttlNanos) {
+                hits.increment();
+            } else if (entry != null && (entry.restored || age < entry.ttlNanos + staleTtlNanos)) {
+                staleHits.increment();
+                refresh = entry.refreshing.compareAndSet(false, true);
+            } else {
+                misses.increment();
+                Entry expired = entry != null && entry.values != null ? entry : null;
+                entry = load(key, loader, now, ttlNanos, expired);
+                entries.put(key, entry);
+            }
+        }
+
+        if (refresh) {
+            refreshInBackground(key, entry, loader);
+        }
+        return entry;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("github.response.cache.size", this, cache -> cache.stats().size())
+                .description("Usernames with a cached response")
+                .register(registry);
+        Gauge.builder("github.response.cache.hit.ratio", this, cache -> cache.stats().hitRatio())
+                .description("Share of requests served without starting an upstream load")
+                .register(registry);
+        registerRequestCounter(registry, hits, "hit");
+        registerRequestCounter(registry, staleHits, "stale_hit");
+        registerRequestCounter(registry, misses, "miss");
+        registerRequestCounter(registry, coalesced, "coalesced");
+        registerRequestCounter(registry, fallbacks, "fallback");
+        FunctionCounter.builder("github.response.cache.derived.requests", derivedHits, LongAdder::sum)
+                .description("Requests for a value derived from a cached response, e.g. its encoded body, by result")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("github.response.cache.derived.requests", derivedMisses, LongAdder::sum)
+                .description("Requests for a value derived from a cached response, e.g. its encoded body, by result")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("github.response.cache.evictions", evictions, LongAdder::sum)
+                .description("Entries evicted because the cache was full")
+                .register(registry);
+    }
+
+    /**
+     * Registers the listener notified of every list loaded from upstream, restored entries excluded.
+     */
+    void onLoad(BiConsumer<String, List<RepositoryDTO>> loadListener) {
+        this.loadListener = loadListener;
+    }
+
+    /**
+     * Adds a list kept from a previous run unless the key was cached in the meantime. Restored entries are served as
+     * stale until the first request for them has refreshed them in the background, whatever their age.
+     */
+    void restore(String key, List<RepositoryDTO> repositories) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        Entry entry = completedEntry(repositories, nanoClock.getAsLong(), ttlNanos);
+        entry.restored = true;
+        synchronized (entries) {
+            entries.putIfAbsent(key, entry);
+        }
+    }
+
+    /**
+     * Replaces a cached list with {@code update} applied to it, fresh for {@code ttl}. The lists passed to
+     * {@code update} are shared with earlier responses and must not be modified. Returns {@code false} and drops the
+     * key when there is no completed list to update, so the next request loads it again.
+     */
+    public boolean update(String key, UnaryOperator<List<RepositoryDTO>> update, Duration ttl) {
+        List<RepositoryDTO> updated;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null || !entry.completed.get()) {
+                entries.remove(key);
+                return false;
+            }
+            updated = List.copyOf(update.apply(entry.values));
+            entries.put(key, completedEntry(updated, nanoClock.getAsLong(), ttl.toNanos()));
+        }
+        loadListener.accept(key, updated);
+        return true;
+    }
+
+    public void invalidate(String key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(entries.size(), hits.sum(), staleHits.sum(), misses.sum(), coalesced.sum(), evictions.sum());
+        }
+    }
+
+    private static void registerRequestCounter(MeterRegistry registry, LongAdder counter, String result) {
+        FunctionCounter.builder("github.response.cache.requests", counter, LongAdder::sum)
+                .description("Repository requests by response cache result")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private Entry load(String key, Supplier<Flux<RepositoryDTO>> loader, long now, long entryTtlNanos) {
+        return load(key, loader, now, entryTtlNanos, null);
+    }
+
+    private Entry load(String key, Supplier<Flux<RepositoryDTO>> loader, long now, long entryTtlNanos, Entry expired) {
+        Entry entry = new Entry(now, entryTtlNanos);
+        Flux<RepositoryDTO> upstream = Flux.defer(() -> {
+                    List<RepositoryDTO> loaded = new ArrayList<>();
+                    return loader.get()
+                            .doOnNext(loaded::add)
+                            .doOnComplete(() -> {
+                                entry.values = loaded;
+                                // later requests replay the list, never the load
+                                entry.repositories = Flux.fromIterable(loaded);
+                                entry.completed.set(true);
+                                loadListener.accept(key, loaded);
+                            });
+                })
+                // the expired list stays around for the next fallback
+                .doOnError(error -> discard(key, entry, expired));
+
+        if (expired != null) {
+            // nothing is emitted before the load completed, so a failed load can still be answered with the expired list
+            upstream = upstream.collectList()
+                    .onErrorResume(GithubRepositoriesCache::isUnavailable, error -> {
+                        log.warn("GithubRepositoriesCache::load loading {} failed: {}, serving the expired list", key, error.getMessage());
+                        fallbacks.increment();
+                        return Mono.just(expired.values);
+                    })
+                    .flatMapIterable(repositories -> repositories);
+        }
+        // the load is cancelled, and not cached, once every request waiting for it is gone, e.g. past its deadline
+        entry.repositories = upstream
+                .doOnCancel(() -> discard(key, entry, expired))
+                .replay()
+                .refCount(1);
+        return entry;
+    }
+
+    private void discard(String key, Entry entry, Entry expired) {
+        synchronized (entries) {
+            if (expired != null) {
+                entries.replace(key, entry, expired);
+            } else {
+                entries.remove(key, entry);
+            }
+        }
+    }
+
+    private static boolean isUnavailable(Throwable error) {
+        return error instanceof GithubUnavailableException
+                || error instanceof UnknownGithubApiException
+                || error instanceof WebClientRequestException;
+    }
+
+    private void refreshInBackground(String key, Entry staleEntry, Supplier<Flux<RepositoryDTO>> loader) {
+        log.info("GithubRepositoriesCache::refreshInBackground entry {} is stale, refreshing", key);
+
+        // a refresh is not a webhook event, only update() keeps an entry fresh for tracked-ttl
+        Entry refreshedEntry = load(key, loader, nanoClock.getAsLong(), ttlNanos);
+        refreshedEntry.repositories.subscribe(
+                repository -> { },
+                error -> {
+                    log.error("GithubRepositoriesCache::refreshInBackground refresh of {} failed: {}", key, error.getMessage());
+                    staleEntry.refreshing.set(false);
+                },
+                () -> {
+                    synchronized (entries) {
+                        entries.put(key, refreshedEntry);
+                    }
+                }
+        );
+    }
+
+    private static Entry completedEntry(List<RepositoryDTO> repositories, long now, long entryTtlNanos) {
+        Entry entry = new Entry(now, entryTtlNanos);
+        entry.values = repositories;
+        entry.repositories = Flux.fromIterable(repositories);
+        entry.completed.set(true);
+        return entry;
+    }
+
+    private static final class Entry {
+        private final long createdNanos;
+        private final long ttlNanos;
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile Flux<RepositoryDTO> repositories;
+        // the emitted list, set before the entry is marked as completed
+        private volatile List<RepositoryDTO> values;
+        private boolean restored;
+        private final Map<String, Object> derived = new ConcurrentHashMap<>();
+
+        private Entry(long createdNanos, long ttlNanos) {
+            this.createdNanos = createdNanos;
+            this.ttlNanos = ttlNanos;
+        }
+    }
+
+    public record Stats(int size, long hits, long staleHits, long misses, long coalesced, long evictions) {
+
+        public double hitRatio() {
+            long requests = hits + staleHits + misses + coalesced;
+            return requests == 0 ? 0.0 : (double) (hits + staleHits + coalesced) / requests;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.tomdud.githubservice.service;
+
+import com.tomdud.githubservice.dto.BranchDTO;
+import com.tomdud.githubservice.dto.RepositoryDTO;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Part of the repositories of a user a caller is interested in. Backends apply it before calling GitHub, so excluded
+ * repositories never cost an upstream call and {@code branches = false} resolves only the repository list.
+ * <p>
+ * Filters are globs ({@code *} any characters, {@code ?} one character), a filter without wildcards matches names
+ * starting with it. Repository names are matched ignoring case like GitHub does, branch names exactly.
+ */
+public final class GithubRepositoriesQuery {
+
+    public static final GithubRepositoriesQuery ALL = new GithubRepositoriesQuery(true, null, null, null);
+
+    static final char KEY_SEPARATOR = '?';
+
+    private final boolean branches;
+    private final Integer maxBranches;
+    private final String repositoryFilter;
+    private final String branchFilter;
+    private final Pattern repositoryPattern;
+    private final Pattern branchPattern;
+
+    /**
+     * @param branches         whether branches are resolved at all
+     * @param maxBranches      the most branches returned per repository, {@code null} for all of them
+     * @param repositoryFilter glob or prefix the repository name must match, {@code null} for all repositories
+     * @param branchFilter     glob or prefix the branch name must match, {@code null} for all branches
+     */
+    public GithubRepositoriesQuery(boolean branches, Integer maxBranches, String repositoryFilter, String branchFilter) {
+        if (maxBranches != null && maxBranches < 0) {
+            throw new IllegalArgumentException("maxBranches must not be negative");
+        }
+        this.branches = branches;
+        this.maxBranches = maxBranches;
+        this.repositoryFilter = repositoryFilter == null || repositoryFilter.isBlank() ? null : repositoryFilter.trim();
+        this.branchFilter = branchFilter == null || branchFilter.isBlank() ? null : branchFilter.trim();
+        this.repositoryPattern = this.repositoryFilter != null ? toPattern(this.repositoryFilter, Pattern.CASE_INSENSITIVE) : null;
+        this.branchPattern = this.branchFilter != null ? toPattern(this.branchFilter, 0) : null;
+    }
+
+    public boolean branches() {
+        return branches;
+    }
+
+    public Integer maxBranches() {
+        return maxBranches;
+    }
+
+    public boolean isAll() {
+        return branches && maxBranches == null && repositoryFilter == null && branchFilter == null;
+    }
+
+    /**
+     * Whether every branch of a repository is resolved, only then the branch list can be shared with other queries.
+     */
+    public boolean allBranches() {
+        return branches && maxBranches == null && branchFilter == null;
+    }
+
+    /**
+     * Whether branches are not filtered by name, they may still be capped.
+     */
+    public boolean allBranchNames() {
+        return branchPattern == null;
+    }
+
+    public boolean matchesRepository(String repositoryName) {
+        return repositoryPattern == null || repositoryPattern.matcher(repositoryName).matches();
+    }
+
+    public boolean matchesBranch(String branchName) {
+        return branchPattern == null || branchPattern.matcher(branchName).matches();
+    }
+
+    /**
+     * Returns the branches of a repository this query asks for, {@code null} when it asks for none.
+     */
+    public List<BranchDTO> project(List<BranchDTO> branches) {
+        if (!this.branches) {
+            return null;
+        }
+        if (allBranches()) {
+            return branches;
+        }
+        return branches.stream()
+                .filter(branch -> matchesBranch(branch.getName()))
+                .limit(maxBranches != null ? maxBranches : Long.MAX_VALUE)
+                .toList();
+    }
+
+    /**
+     * Returns the part of a full response, resolved for {@link #ALL}, this query asks for. The full response is shared
+     * with other requests and left as it is, the repositories returned are copies.
+     */
+    public List<RepositoryDTO> projectRepositories(List<RepositoryDTO> repositories) {
+        if (isAll()) {
+            return repositories;
+        }
+        return repositories.stream()
+                .filter(repository -> matchesRepository(repository.getRepositoryName()))
+                .map(repository -> {
+                    RepositoryDTO projected = new RepositoryDTO();
+                    projected.setRepositoryName(repository.getRepositoryName());
+                    projected.setRepositoryOwner(repository.getRepositoryOwner());
+                    projected.setFork(repository.isFork());
+                    projected.setPushedAt(repository.getPushedAt());
+                    projected.setBranches(project(repository.getBranches() != null ? repository.getBranches() : List.of()));
+                    return projected;
+                })
+                .toList();
+    }
+
+    /**
+     * Key of the cached response of {@code username} for this query, the plain lower-case username for {@link #ALL}
+     * so that webhooks and the persistent cache keep working on full responses.
+     */
+    public String cacheKey(String username) {
+        String key = username.toLowerCase(Locale.ROOT);
+        if (isAll()) {
+            return key;
+        }
+        return key + KEY_SEPARATOR + parametersKey();
+    }
+
+    /**
+     * The parameters of this query in a canonical form, e.g. to tell apart projections derived from the same response.
+     */
+    public String parametersKey() {
+        return "branches=" + branches
+                + "&maxBranches=" + (maxBranches != null ? maxBranches : "")
+                + "&repositoryFilter=" + (repositoryFilter != null ? repositoryFilter.toLowerCase(Locale.ROOT) : "")
+                + "&branchFilter=" + (branchFilter != null ? branchFilter : "");
+    }
+
+    private static Pattern toPattern(String filter, int flags) {
+        boolean glob = filter.indexOf('*') >= 0 || filter.indexOf('?') >= 0;
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char character : filter.toCharArray()) {
+            if (character == '*' || character == '?') {
+                regex.append(Pattern.quote(literal.toString())).append(character == '*' ? ".*" : ".");
+                literal.setLength(0);
+            } else {
+                literal.append(character);
+            }
+        }
+        regex.append(Pattern.quote(literal.toString()));
+        return Pattern.compile(glob ? regex.toString() : regex + ".*", flags | Pattern.DOTALL);
+    }
+}
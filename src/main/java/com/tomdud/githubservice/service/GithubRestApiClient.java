@@ -0,0 +1,158 @@
+package com.tomdud.githubservice.service;
+
+import com.tomdud.githubservice.dto.BranchDTO;
+import com.tomdud.githubservice.dto.RepositoryDTO;
+import com.tomdud.githubservice.exception.GithubBadRequestException;
+import com.tomdud.githubservice.exception.GithubResourceNotFoundException;
+import com.tomdud.githubservice.exception.GithubUserNotFoundException;
+import com.tomdud.githubservice.exception.UnknownGithubApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * REST v3 backend: one paginated {@code /users/{username}/repos} call followed by one paginated
+ * {@code /repos/{username}/{repository}/branches} call per not forked repository that was pushed to since its branches
+ * were last resolved (see {@link GithubBranchSnapshotCache}). Repositories excluded by the query are dropped before
+ * their branches are requested, and a query without branches costs only the repository list.
+ */
+@Component
+public class GithubRestApiClient implements GithubApiClient {
+
+    private static final int PAGE_SIZE = 100;
+
+    private final Logger log = LoggerFactory.getLogger(GithubRestApiClient.class);
+    private final WebClient webClient;
+    private final GithubFanOutScheduler fanOutScheduler;
+    private final GithubBranchSnapshotCache branchSnapshots;
+
+    public GithubRestApiClient(
+            WebClient githubWebClient,
+            GithubFanOutScheduler fanOutScheduler,
+            GithubBranchSnapshotCache branchSnapshots
+    ) {
+        this.webClient = githubWebClient;
+        this.fanOutScheduler = fanOutScheduler;
+        this.branchSnapshots = branchSnapshots;
+    }
+
+    @Override
+    public Flux<RepositoryDTO> getUserRepositories(String username, GithubRepositoriesQuery query) {
+        String usersResourceUri = String.format("/users/%s/repos?per_page=%d", username, PAGE_SIZE);
+
+        log.info("GithubRestApiClient::getUserRepositories for username {} - send request to GitHub API {}", username, usersResourceUri);
+
+        Flux<RepositoryDTO> repositories = getAllPages(webClient.get().uri(usersResourceUri), RepositoryDTO.class, responseSpec -> responseSpec
+                .onStatus(HttpStatusCode::is4xxClientError, clientErrorResponse -> {
+                    if (clientErrorResponse.statusCode().equals(HttpStatus.NOT_FOUND)) {
+                        log.error("GithubRestApiClient::getUserRepositories Username with name {} not found on GitHub", username);
+                        return Mono.error(new GithubUserNotFoundException(String.format("Username with name %s not found on GitHub", username)));
+                    } else {
+                        log.error("GithubRestApiClient::getUserRepositories GithubBadRequestException, probably reach limit of requests");
+                        return Mono.error(new GithubBadRequestException("GithubBadRequestException, you probably reach limit of requests"));
+                    }
+                })
+                .onStatus(HttpStatusCode::isError, clientErrorResponse -> {
+                    log.error("GithubRestApiClient::getUserRepositories GithubApi exception, status code from Github - {}", clientErrorResponse.statusCode().value());
+                    return Mono.error(new UnknownGithubApiException(String.format("Unknown GithubApi exception, status code from Github - %d", clientErrorResponse.statusCode().value())));
+                }))
+                .filter(Predicate.not(RepositoryDTO::isFork))
+                .filter(repository -> query.matchesRepository(repository.getRepositoryName()));
+
+        if (!query.branches() || Integer.valueOf(0).equals(query.maxBranches())) {
+            return repositories.map(repository -> {
+                repository.setBranches(query.project(List.of()));
+                return repository;
+            });
+        }
+
+        return Flux.defer(() -> repositories.flatMap(repository -> {
+            List<BranchDTO> knownBranches = branchSnapshots.get(username, repository.getRepositoryName(), repository.getPushedAt());
+            if (knownBranches != null) {
+                repository.setBranches(query.project(knownBranches));
+                return Mono.just(repository);
+            }
+
+            Flux<BranchDTO> branchInfo = getInformationAboutBranchesInRepository(username, repository.getRepositoryName(), query);
+            return fanOutScheduler.schedule(branchInfo.collectList()).map(branchesList -> {
+                // only a complete branch list can answer other queries
+                if (query.allBranches()) {
+                    branchSnapshots.put(username, repository.getRepositoryName(), repository.getPushedAt(), branchesList);
+                }
+                repository.setBranches(branchesList);
+                return repository;
+            });
+        }, fanOutScheduler.perRequestConcurrency()));
+    }
+
+
+    private Flux<BranchDTO> getInformationAboutBranchesInRepository(String username, String repositoryName, GithubRepositoriesQuery query) {
+        // without a branch filter the first maxBranches branches are all that is needed, later pages are never requested
+        int pageSize = query.maxBranches() != null && query.allBranchNames()
+                ? Math.min(query.maxBranches(), PAGE_SIZE)
+                : PAGE_SIZE;
+        String reposResourceUri = String.format("/repos/%s/%s/branches?per_page=%d", username, repositoryName, pageSize);
+
+        log.info(
+                "GithubRestApiClient::getInformationAboutBranchesInRepository for username {} and repository {} - send request to GitHub API {}",
+                username, repositoryName, reposResourceUri
+        );
+
+        Flux<BranchDTO> branches = getAllPages(webClient.get().uri(reposResourceUri), BranchDTO.class, responseSpec -> responseSpec
+                .onStatus(HttpStatusCode::is4xxClientError, clientErrorResponse -> {
+                    if (clientErrorResponse.statusCode().equals(HttpStatus.NOT_FOUND)) {
+                        log.error(
+                                "GithubRestApiClient::getInformationAboutBranchesInRepository Username {} or repository {} not found on GitHub",
+                                username, repositoryName
+                        );
+                        return Mono.error(
+                                new GithubResourceNotFoundException(
+                                        String.format("Username %s or repository %s not found on GitHub", username, repositoryName))
+                        );
+                    } else {
+                        log.error("GithubRestApiClient::getInformationAboutBranchesInRepository GithubBadRequestException, probably reach limit of requests");
+                        return Mono.error(new GithubBadRequestException("GithubBadRequestException, you probably reach limit of requests"));
+                    }
+                })
+                .onStatus(HttpStatusCode::isError, clientErrorResponse -> {
+                    log.error("GithubRestApiClient::getInformationAboutBranchesInRepository GithubApi exception, status code from Github - {}", clientErrorResponse.statusCode().value());
+                    return Mono.error(new UnknownGithubApiException(String.format("Unknown GithubApi exception, status code from Github - %d", clientErrorResponse.statusCode().value())));
+                }))
+                .filter(branch -> query.matchesBranch(branch.getName()));
+        return query.maxBranches() != null ? branches.take(query.maxBranches()) : branches;
+    }
+
+    /**
+     * Streams every page of a paginated GitHub resource. Elements of a page are emitted as soon as they are decoded
+     * and the next page (taken from the {@code Link: rel="next"} header) is requested once the current body is drained,
+     * so downstream work on page N overlaps with fetching page N + 1 and at most one page is held at a time.
+     */
+    private <T> Flux<T> getAllPages(
+            WebClient.RequestHeadersSpec<?> pageRequest,
+            Class<T> elementType,
+            UnaryOperator<WebClient.ResponseSpec> statusHandlers
+    ) {
+        return statusHandlers.apply(pageRequest.accept(MediaType.APPLICATION_JSON).retrieve())
+                .toEntityFlux(elementType)
+                .flatMapMany(pageEntity -> {
+                    Flux<T> pageElements = pageEntity.getBody() != null ? pageEntity.getBody() : Flux.empty();
+                    return GithubLinkHeader.nextPage(pageEntity.getHeaders())
+                            .map(nextPageUri -> Flux.concat(pageElements, Flux.defer(() -> {
+                                log.info("GithubRestApiClient::getAllPages - send request to GitHub API for next page {}", nextPageUri);
+                                return getAllPages(webClient.get().uri(nextPageUri), elementType, statusHandlers);
+                            })))
+                            .orElse(pageElements);
+                });
+    }
+
+}
@@ -0,0 +1,181 @@
+package com.tomdud.githubservice.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retries GitHub GET calls that failed transiently: connection errors, {@code 5xx} responses, {@code 429} and the
+ * {@code 403} secondary rate limit, which GitHub sends with a {@code Retry-After} header.
+ * <p>
+ * Retries wait for the {@code Retry-After} of the response when there is one, otherwise for an exponential backoff
+ * with full jitter, so that clients failing together do not retry together. A response asking to wait longer than
+ * {@code max-backoff} is returned as it is, the caller is better off failing than holding the request. For the same
+ * reason no retry is started that would wait past the deadline the admission control gave the request.
+ */
+@Component
+public class GithubRetryPolicy implements MeterBinder {
+
+    private final Logger log = LoggerFactory.getLogger(GithubRetryPolicy.class);
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final LongAdder serverErrorRetries = new LongAdder();
+    private final LongAdder rateLimitedRetries = new LongAdder();
+    private final LongAdder connectionErrorRetries = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    public GithubRetryPolicy(
+            @Value("${webclient.api.github.resilience.retry.max-attempts:3}") int maxAttempts,
+            @Value("${webclient.api.github.resilience.retry.initial-backoff:200ms}") Duration initialBackoff,
+            @Value("${webclient.api.github.resilience.retry.max-backoff:5s}") Duration maxBackoff
+    ) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+    }
+
+    public ExchangeFilterFunction retryFilter() {
+        return (request, next) -> {
+            if (maxAttempts <= 1 || !HttpMethod.GET.equals(request.method())) {
+                return next.exchange(request);
+            }
+            return Mono.defer(() -> exchange(request, next, 1));
+        };
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        registerRetryCounter(registry, serverErrorRetries, "server_error");
+        registerRetryCounter(registry, rateLimitedRetries, "rate_limited");
+        registerRetryCounter(registry, connectionErrorRetries, "connection_error");
+        FunctionCounter.builder("github.resilience.retries.exhausted", exhausted, LongAdder::sum)
+                .description("GitHub calls that still failed after the last attempt")
+                .register(registry);
+    }
+
+    // the outcome of every attempt is materialized, so failures of later attempts are never handled twice
+    private Mono<ClientResponse> exchange(ClientRequest request, ExchangeFunction next, int attempt) {
+        return next.exchange(request).materialize().flatMap(signal -> {
+            if (signal.isOnComplete()) {
+                return Mono.empty();
+            }
+            if (signal.isOnError()) {
+                Throwable error = signal.getThrowable();
+                if (!(error instanceof WebClientRequestException)) {
+                    return Mono.error(error);
+                }
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    return Mono.error(error);
+                }
+                Duration backoff = backoff(attempt);
+                return Mono.deferContextual(context -> {
+                    if (!beforeDeadline(context, backoff)) {
+                        exhausted.increment();
+                        return Mono.error(error);
+                    }
+                    connectionErrorRetries.increment();
+                    log.warn("GithubRetryPolicy::exchange {} failed: {}, retrying in {} ms", request.url(), error.getMessage(), backoff.toMillis());
+                    return Mono.delay(backoff).then(Mono.defer(() -> exchange(request, next, attempt + 1)));
+                });
+            }
+
+            ClientResponse response = signal.get();
+            if (!isRetryable(response)) {
+                return Mono.just(response);
+            }
+            Duration delay = retryDelay(response, attempt);
+            return Mono.deferContextual(context -> {
+                if (delay == null || !beforeDeadline(context, delay)) {
+                    exhausted.increment();
+                    return Mono.just(response);
+                }
+
+                (response.statusCode().is5xxServerError() ? serverErrorRetries : rateLimitedRetries).increment();
+                log.warn("GithubRetryPolicy::exchange {} answered {}, retrying in {} ms",
+                        request.url(), response.statusCode().value(), delay.toMillis());
+                return response.releaseBody()
+                        .then(Mono.delay(delay))
+                        .then(Mono.defer(() -> exchange(request, next, attempt + 1)));
+            });
+        });
+    }
+
+    // a retry that cannot be answered before the request's deadline only holds on to its admission slot
+    static boolean beforeDeadline(ContextView context, Duration delay) {
+        Long deadlineNanos = context.getOrDefault(GithubAdmissionControl.DEADLINE_CONTEXT_KEY, null);
+        return deadlineNanos == null || System.nanoTime() + delay.toNanos() < deadlineNanos;
+    }
+
+    private static boolean isRetryable(ClientResponse response) {
+        int status = response.statusCode().value();
+        return response.statusCode().is5xxServerError()
+                || status == HttpStatus.TOO_MANY_REQUESTS.value()
+                || (status == HttpStatus.FORBIDDEN.value() && response.headers().asHttpHeaders().containsKey(HttpHeaders.RETRY_AFTER));
+    }
+
+    // null when the response should not be retried any more
+    private Duration retryDelay(ClientResponse response, int attempt) {
+        if (attempt >= maxAttempts) {
+            return null;
+        }
+        Duration retryAfter = parseRetryAfter(response.headers().asHttpHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        if (retryAfter == null) {
+            return backoff(attempt);
+        }
+        return retryAfter.toMillis() <= maxBackoffMillis ? retryAfter : null;
+    }
+
+    Duration backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    static Duration parseRetryAfter(String retryAfter) {
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException numberFormatException) {
+            // not delta-seconds, try the HTTP-date form
+        }
+        try {
+            Duration untilDate = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+            return untilDate.isNegative() ? Duration.ZERO : untilDate;
+        } catch (DateTimeParseException dateTimeParseException) {
+            return null;
+        }
+    }
+
+    private static void registerRetryCounter(MeterRegistry registry, LongAdder counter, String reason) {
+        FunctionCounter.builder("github.resilience.retries", counter, LongAdder::sum)
+                .description("Retried GitHub calls by reason")
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
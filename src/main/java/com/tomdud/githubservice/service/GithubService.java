@@ -1,119 +1,163 @@
 package com.tomdud.githubservice.service;
 
-import com.tomdud.githubservice.dto.BranchDTO;
+import com.tomdud.githubservice.codec.GithubResponseEncoder;
+import com.tomdud.githubservice.codec.GithubResponseEncoder.EncodedResponse;
+import com.tomdud.githubservice.dto.ErrorDTO;
 import com.tomdud.githubservice.dto.RepositoryDTO;
+import com.tomdud.githubservice.dto.UserRepositoriesDTO;
 import com.tomdud.githubservice.exception.GithubBadRequestException;
+import com.tomdud.githubservice.exception.GithubRateLimitExceededException;
 import com.tomdud.githubservice.exception.GithubResourceNotFoundException;
+import com.tomdud.githubservice.exception.GithubUnavailableException;
 import com.tomdud.githubservice.exception.GithubUserNotFoundException;
-import com.tomdud.githubservice.exception.UnknownGithubApiException;
+import com.tomdud.githubservice.metrics.GithubMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.HttpStatusCode;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.function.Predicate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Service
 public class GithubService {
 
     private final Logger log = LoggerFactory.getLogger(GithubService.class);
-    private final WebClient webClient;
+    private final GithubApiClient githubApiClient;
+    private final GithubRepositoriesCache repositoriesCache;
+    private final GithubMetrics githubMetrics;
+    private final GithubResponseEncoder responseEncoder;
+    private final int bulkMaxConcurrentUsers;
 
     public GithubService(
-            @Value("${token:}") String token,
-            @Value("${webclient.api.github.url}") String url,
-            @Value("${webclient.api.github.version}") String version
+            GithubRestApiClient restApiClient,
+            GithubGraphQlApiClient graphQlApiClient,
+            GithubRepositoriesCache repositoriesCache,
+            GithubMetrics githubMetrics,
+            GithubResponseEncoder responseEncoder,
+            GithubTokenPool tokenPool,
+            @Value("${webclient.api.github.backend:rest}") String backend,
+            @Value("${webclient.api.github.bulk.max-concurrent-users:4}") int bulkMaxConcurrentUsers
     ) {
-        if (!token.isEmpty()) {
-            log.info("GithubService::Constructor token mode enabled");
-            this.webClient = WebClient.builder()
-                    .baseUrl(url)
-                    .defaultHeader("Authorization", token)
-                    .defaultHeader("X-GitHub-Api-Version", version)
-                    .defaultHeader("Accept", "application/vnd.github+json")
-                    .build();
+        this.repositoriesCache = repositoriesCache;
+        this.githubMetrics = githubMetrics;
+        this.responseEncoder = responseEncoder;
+        this.bulkMaxConcurrentUsers = bulkMaxConcurrentUsers;
+
+        if (!"graphql".equalsIgnoreCase(backend)) {
+            log.info("GithubService::Constructor REST backend enabled");
+            this.githubApiClient = restApiClient;
+        } else if (tokenPool.isEmpty()) {
+            log.warn("GithubService::Constructor GraphQL backend requires a token, falling back to REST backend");
+            this.githubApiClient = restApiClient;
         } else {
-            log.info("GithubService::Constructor token mode disabled");
-            this.webClient = WebClient.builder()
-                    .baseUrl(url)
-                    .defaultHeader("X-GitHub-Api-Version", version)
-                    .defaultHeader("Accept", "application/vnd.github+json")
-                    .build();
+            log.info("GithubService::Constructor GraphQL backend enabled");
+            this.githubApiClient = graphQlApiClient;
         }
     }
 
     public Flux<RepositoryDTO> getUserRepositories(String username) {
-        String usersResourceUri = String.format("/users/%s/repos", username);
-
-        log.info("GithubService::getUserRepositories for username {} - send request to GitHub API {}", username, usersResourceUri);
-
-        return webClient.get()
-                .uri(usersResourceUri)
-                .accept(MediaType.APPLICATION_JSON)
-                .retrieve()
-                .onStatus(HttpStatusCode::is4xxClientError, clientErrorResponse -> {
-                    if (clientErrorResponse.statusCode().equals(HttpStatus.NOT_FOUND)) {
-                        log.error("GithubService::getUserRepositories Username with name {} not found on GitHub", username);
-                        return Mono.error(new GithubUserNotFoundException(String.format("Username with name %s not found on GitHub", username)));
-                    } else {
-                        log.error("GithubService::getUserRepositories GithubBadRequestException, probably reach limit of requests");
-                        return Mono.error(new GithubBadRequestException("GithubBadRequestException, you probably reach limit of requests"));
-                    }
-                })
-                .onStatus(HttpStatusCode::isError, clientErrorResponse -> {
-                    log.error("GithubService::getUserRepositories GithubApi exception, status code from Github - {}", clientErrorResponse.statusCode().value());
-                    return Mono.error(new UnknownGithubApiException(String.format("Unknown GithubApi exception, status code from Github - %d", clientErrorResponse.statusCode().value())));
-                })
-                .bodyToFlux(RepositoryDTO.class)
-                .filter(Predicate.not(RepositoryDTO::isFork))
-                .flatMap(repository -> {
-                    Flux<BranchDTO> branchInfo = getInformationAboutBranchesInRepository(username, repository.getRepositoryName());
-                    return branchInfo.collectList().map(branchesList -> {
-                        repository.setBranches(branchesList);
-                        return repository;
-                    });
-                });
+        return getUserRepositories(username, GithubRepositoriesQuery.ALL);
+    }
+
+    /**
+     * Resolves the part of the repositories selected by {@code query}. While the full response of the user is cached
+     * and fresh the part is projected from it and kept next to it. Otherwise the query is loaded and cached on its own,
+     * so a projection never has to wait for, or pay for, the branches it does not ask for.
+     */
+    public Flux<RepositoryDTO> getUserRepositories(String username, GithubRepositoriesQuery query) {
+        if (query.isAll()) {
+            return repositoriesCache.get(query.cacheKey(username), () -> load(username, query));
+        }
+        return repositoriesCache.getDerivedIfFresh(GithubRepositoriesQuery.ALL.cacheKey(username), query.parametersKey(), query::projectRepositories)
+                .map(Flux::fromIterable)
+                .defaultIfEmpty(Flux.defer(() -> repositoriesCache.get(query.cacheKey(username), () -> load(username, query))))
+                .flatMapMany(repositories -> repositories);
+    }
+
+    /**
+     * Resolves the same repositories as {@link #getUserRepositories(String, GithubRepositoriesQuery)} as an encoded
+     * JSON array, which is encoded once per cached response and shared by every request answered with it.
+     */
+    public Mono<EncodedResponse> getEncodedUserRepositories(String username, GithubRepositoriesQuery query) {
+        Mono<EncodedResponse> loaded = Mono.defer(() -> repositoriesCache.getDerived(query.cacheKey(username), () -> load(username, query), "json", responseEncoder::encodeJsonArray));
+        if (query.isAll()) {
+            return loaded;
+        }
+        return repositoriesCache.getDerivedIfFresh(GithubRepositoriesQuery.ALL.cacheKey(username), "json" + GithubRepositoriesQuery.KEY_SEPARATOR + query.parametersKey(),
+                        repositories -> responseEncoder.encodeJsonArray(query.projectRepositories(repositories)))
+                .switchIfEmpty(loaded);
     }
 
+    /**
+     * Resolves the same repositories as {@link #getUserRepositories(String, GithubRepositoriesQuery)} for a streaming
+     * response. A loaded list is emitted as JSON values encoded once per cached response, a list that is still
+     * loading as its repositories resolve.
+     */
+    public Flux<Object> streamUserRepositories(String username, GithubRepositoriesQuery query) {
+        Flux<Object> loaded = repositoriesCache.getDerivedElements(query.cacheKey(username), () -> load(username, query), "ndjson",
+                responseEncoder::encodeJsonValues, repository -> repository);
+        if (query.isAll()) {
+            return loaded;
+        }
+        return repositoriesCache.getDerivedIfFresh(GithubRepositoriesQuery.ALL.cacheKey(username), "ndjson" + GithubRepositoriesQuery.KEY_SEPARATOR + query.parametersKey(),
+                        repositories -> responseEncoder.encodeJsonValues(query.projectRepositories(repositories)))
+                .<Flux<Object>>map(Flux::fromIterable)
+                .defaultIfEmpty(loaded)
+                .flatMapMany(values -> values);
+    }
 
-    private Flux<BranchDTO> getInformationAboutBranchesInRepository(String username, String repositoryName) {
-        String reposResourceUri = String.format("/repos/%s/%s/branches", username, repositoryName);
-
-        log.info(
-                "GithubService::getInformationAboutBranchesInRepository for username {} and repository {} - send request to GitHub API {}",
-                username, repositoryName, reposResourceUri
-        );
-
-        return webClient.get()
-                .uri(reposResourceUri)
-                .accept(MediaType.APPLICATION_JSON)
-                .retrieve()
-                .onStatus(HttpStatusCode::is4xxClientError, clientErrorResponse -> {
-                    if (clientErrorResponse.statusCode().equals(HttpStatus.NOT_FOUND)) {
-                        log.error(
-                                "GithubService::getInformationAboutBranchesInRepository Username {} or repository {} not found on GitHub",
-                                username, repositoryName
-                        );
-                        return Mono.error(
-                                new GithubResourceNotFoundException(
-                                        String.format("Username %s or repository %s not found on GitHub", username, repositoryName))
-                        );
-                    } else {
-                        log.error("GithubService::getInformationAboutBranchesInRepository GithubBadRequestException, probably reach limit of requests");
-                        return Mono.error(new GithubBadRequestException("GithubBadRequestException, you probably reach limit of requests"));
-                    }
-                })
-                .onStatus(HttpStatusCode::isError, clientErrorResponse -> {
-                    log.error("GithubService::getInformationAboutBranchesInRepository GithubApi exception, status code from Github - {}", clientErrorResponse.statusCode().value());
-                    return Mono.error(new UnknownGithubApiException(String.format("Unknown GithubApi exception, status code from Github - %d", clientErrorResponse.statusCode().value())));
-                })
-                .bodyToFlux(BranchDTO.class);
+    /**
+     * Resolves the repositories of every distinct username (compared case-insensitively, first spelling wins) and
+     * emits one result per user as soon as it is complete. At most {@code bulk.max-concurrent-users} users are resolved
+     * at once, their branch calls share the budget of {@link GithubFanOutScheduler} with all other requests. A failing
+     * user is reported in its result instead of failing the whole batch.
+     */
+    public Flux<UserRepositoriesDTO> getUsersRepositories(List<String> usernames) {
+        return getUsersRepositories(usernames, GithubRepositoriesQuery.ALL);
+    }
+
+    public Flux<UserRepositoriesDTO> getUsersRepositories(List<String> usernames, GithubRepositoriesQuery query) {
+        Map<String, String> distinctUsernames = new LinkedHashMap<>();
+        for (String username : usernames) {
+            if (username != null && !username.isBlank()) {
+                distinctUsernames.putIfAbsent(username.trim().toLowerCase(Locale.ROOT), username.trim());
+            }
+        }
+        log.info("GithubService::getUsersRepositories for {} usernames, {} distinct", usernames.size(), distinctUsernames.size());
+
+        return Flux.fromIterable(new ArrayList<>(distinctUsernames.values()))
+                .flatMap(username -> getUserRepositories(username, query)
+                        .collectList()
+                        .map(repositories -> new UserRepositoriesDTO(username, repositories, null))
+                        .onErrorResume(error -> Mono.just(new UserRepositoriesDTO(username, null, toError(error)))),
+                        bulkMaxConcurrentUsers);
+    }
+
+    private Flux<RepositoryDTO> load(String username, GithubRepositoriesQuery query) {
+        return githubApiClient.getUserRepositories(username, query).transform(githubMetrics::recordUserRepositories);
+    }
+
+    private static ErrorDTO toError(Throwable error) {
+        HttpStatus status;
+        if (error instanceof GithubUserNotFoundException || error instanceof GithubResourceNotFoundException) {
+            status = HttpStatus.NOT_FOUND;
+        } else if (error instanceof GithubBadRequestException) {
+            status = HttpStatus.BAD_REQUEST;
+        } else if (error instanceof GithubRateLimitExceededException) {
+            status = HttpStatus.TOO_MANY_REQUESTS;
+        } else if (error instanceof GithubUnavailableException) {
+            status = HttpStatus.SERVICE_UNAVAILABLE;
+        } else {
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+        return new ErrorDTO(status.value(), error.getMessage());
     }
 
 }
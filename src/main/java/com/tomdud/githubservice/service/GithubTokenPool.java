@@ -0,0 +1,258 @@
+package com.tomdud.githubservice.service;
+
+import com.tomdud.githubservice.exception.GithubRateLimitExceededException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Pool of GitHub tokens the upstream calls are spread across.
+ * <p>
+ * Every request is sent with the token that has the most quota left, as last reported by the
+ * {@code X-RateLimit-Remaining} and {@code X-RateLimit-Reset} headers of its responses; the remaining quota is counted
+ * down when a request is sent, so concurrent requests do not all pick the same token. A token that runs out is parked
+ * until its reset time and a request rejected with an exhausted rate limit is retried once with every other token.
+ * Only when the whole pool is parked the request fails with {@link GithubRateLimitExceededException}. Without any
+ * token the requests are sent unauthenticated.
+ */
+@Component
+public class GithubTokenPool implements MeterBinder {
+
+    private static final String RATE_LIMIT_REMAINING_HEADER = "X-RateLimit-Remaining";
+    private static final String RATE_LIMIT_RESET_HEADER = "X-RateLimit-Reset";
+    // quota GitHub grants an authenticated token per hour, assumed until the first response of a token arrives
+    private static final int DEFAULT_QUOTA = 5000;
+
+    private final Logger log = LoggerFactory.getLogger(GithubTokenPool.class);
+
+    private final List<Token> tokens;
+    private final LongSupplier epochMillisClock;
+
+    @Autowired
+    public GithubTokenPool(
+            @Value("${token:}") String token,
+            @Value("${tokens:}") String[] tokens
+    ) {
+        this(token, tokens, System::currentTimeMillis);
+    }
+
+    GithubTokenPool(String token, String[] tokens, LongSupplier epochMillisClock) {
+        Set<String> distinctTokens = new LinkedHashSet<>();
+        if (!token.isBlank()) {
+            distinctTokens.add(token.trim());
+        }
+        Arrays.stream(tokens)
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .forEach(distinctTokens::add);
+
+        this.tokens = new ArrayList<>();
+        for (String value : distinctTokens) {
+            this.tokens.add(new Token(this.tokens.size(), value));
+        }
+        this.epochMillisClock = epochMillisClock;
+    }
+
+    public boolean isEmpty() {
+        return tokens.isEmpty();
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    /**
+     * Filter setting the {@code Authorization} header of every request to the token with the most remaining quota.
+     */
+    public ExchangeFilterFunction authorizationFilter() {
+        return (request, next) -> {
+            if (tokens.isEmpty()) {
+                return next.exchange(request);
+            }
+            return Mono.defer(() -> exchange(request, next, 1));
+        };
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // tagged by the position of the token in the configuration, the token itself is never published
+        for (Token token : tokens) {
+            String index = String.valueOf(token.index);
+            Gauge.builder("github.token.remaining", token, Token::currentRemaining)
+                    .description("Requests the token has left until its rate limit resets")
+                    .tag("token", index)
+                    .register(registry);
+            Gauge.builder("github.token.parked", token, parkedToken -> parkedToken.isParked(epochMillisClock.getAsLong()) ? 1 : 0)
+                    .description("1 while the token is parked until its rate limit resets")
+                    .tag("token", index)
+                    .register(registry);
+            FunctionCounter.builder("github.token.requests", token.requests, LongAdder::sum)
+                    .description("GitHub API calls sent with the token")
+                    .tag("token", index)
+                    .register(registry);
+            FunctionCounter.builder("github.token.rate.limited", token.rateLimited, LongAdder::sum)
+                    .description("GitHub API calls rejected because the token ran out of quota")
+                    .tag("token", index)
+                    .register(registry);
+        }
+    }
+
+    private Mono<ClientResponse> exchange(ClientRequest request, ExchangeFunction next, int attempt) {
+        Token token = select();
+        if (token == null) {
+            return Mono.error(poolExhausted());
+        }
+
+        ClientRequest authorizedRequest = ClientRequest.from(request)
+                .headers(headers -> headers.set(HttpHeaders.AUTHORIZATION, token.value))
+                .build();
+
+        return next.exchange(authorizedRequest).flatMap(response -> {
+            if (!onResponse(token, response)) {
+                return Mono.just(response);
+            }
+            if (attempt >= tokens.size()) {
+                return response.releaseBody().then(Mono.error(this::poolExhausted));
+            }
+            log.warn("GithubTokenPool::exchange token {} ran out of quota, retrying with another token", token.index);
+            return response.releaseBody().then(Mono.defer(() -> exchange(request, next, attempt + 1)));
+        });
+    }
+
+    Token select() {
+        long now = epochMillisClock.getAsLong();
+        Token selected = null;
+        long selectedRemaining = Long.MIN_VALUE;
+        for (Token token : tokens) {
+            synchronized (token) {
+                if (token.isParked(now)) {
+                    continue;
+                }
+                if (token.resetEpochMillis != 0 && now >= token.resetEpochMillis) {
+                    // the rate limit window is over, the quota is full again
+                    token.remaining = Math.max(token.remaining, DEFAULT_QUOTA);
+                    token.resetEpochMillis = 0;
+                }
+                if (token.remaining > selectedRemaining) {
+                    selected = token;
+                    selectedRemaining = token.remaining;
+                }
+            }
+        }
+
+        if (selected != null) {
+            synchronized (selected) {
+                selected.remaining--;
+            }
+            selected.requests.increment();
+        }
+        return selected;
+    }
+
+    // returns whether the token was rejected because of an exhausted rate limit
+    private boolean onResponse(Token token, ClientResponse response) {
+        HttpHeaders headers = response.headers().asHttpHeaders();
+        long remaining = parseLong(headers.getFirst(RATE_LIMIT_REMAINING_HEADER));
+        long resetEpochSeconds = parseLong(headers.getFirst(RATE_LIMIT_RESET_HEADER));
+        int status = response.statusCode().value();
+        boolean rateLimited = remaining == 0
+                && (status == HttpStatus.FORBIDDEN.value() || status == HttpStatus.TOO_MANY_REQUESTS.value());
+
+        synchronized (token) {
+            if (remaining >= 0) {
+                token.remaining = remaining;
+            }
+            if (resetEpochSeconds >= 0) {
+                token.resetEpochMillis = resetEpochSeconds * 1000;
+            }
+            if (remaining == 0) {
+                token.parkedUntilEpochMillis = resetEpochSeconds >= 0
+                        ? resetEpochSeconds * 1000
+                        : epochMillisClock.getAsLong() + 60_000;
+                log.warn("GithubTokenPool::onResponse token {} is out of quota, parked until {}",
+                        token.index, Instant.ofEpochMilli(token.parkedUntilEpochMillis));
+            }
+        }
+
+        if (rateLimited) {
+            token.rateLimited.increment();
+        }
+        return rateLimited;
+    }
+
+    private GithubRateLimitExceededException poolExhausted() {
+        long retryAtEpochMillis = Long.MAX_VALUE;
+        for (Token token : tokens) {
+            synchronized (token) {
+                retryAtEpochMillis = Math.min(retryAtEpochMillis, token.parkedUntilEpochMillis);
+            }
+        }
+        Instant retryAt = Instant.ofEpochMilli(retryAtEpochMillis);
+
+        log.error("GithubTokenPool::poolExhausted all {} GitHub tokens are out of quota until {}", tokens.size(), retryAt);
+        return new GithubRateLimitExceededException(
+                String.format("All %d GitHub tokens reached the limit of requests, try again after %s", tokens.size(), retryAt),
+                retryAt
+        );
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException numberFormatException) {
+            return -1;
+        }
+    }
+
+    static final class Token {
+        private final int index;
+        private final String value;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder rateLimited = new LongAdder();
+        private long remaining = DEFAULT_QUOTA;
+        private long resetEpochMillis;
+        private long parkedUntilEpochMillis;
+
+        private Token(int index, String value) {
+            this.index = index;
+            this.value = value;
+        }
+
+        int index() {
+            return index;
+        }
+
+        synchronized long currentRemaining() {
+            return remaining;
+        }
+
+        synchronized boolean isParked(long nowEpochMillis) {
+            return nowEpochMillis < parkedUntilEpochMillis;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.tomdud.githubservice.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tomdud.githubservice.dto.BranchDTO;
+import com.tomdud.githubservice.dto.RepositoryDTO;
+import com.tomdud.githubservice.exception.GithubWebhookSignatureException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
+
+/**
+ * Applies GitHub webhook deliveries to the cached repositories, so users whose repositories send webhooks are served
+ * without calling GitHub until {@code tracked-ttl} passes without any event.
+ * <p>
+ * {@code push}, {@code create} and {@code delete} events update, add and remove branches, {@code repository} events
+ * remove deleted or privatized repositories and rename renamed ones. When an event cannot be applied exactly, e.g. a
+ * branch created without its head commit or a repository transferred to another owner, the cached user is dropped and
+ * loaded again by its next request. Users that are not cached are left alone.
+ */
+@Service
+public class GithubWebhookService {
+
+    private static final String SIGNATURE_PREFIX = "sha256=";
+    private static final String BRANCH_REF_PREFIX = "refs/heads/";
+
+    private final Logger log = LoggerFactory.getLogger(GithubWebhookService.class);
+
+    private final ObjectMapper objectMapper;
+    private final GithubRepositoriesCache repositoriesCache;
+    private final GithubBranchSnapshotCache branchSnapshots;
+    private final String secret;
+    private final Duration trackedTtl;
+
+    public GithubWebhookService(
+            ObjectMapper objectMapper,
+            GithubRepositoriesCache repositoriesCache,
+            GithubBranchSnapshotCache branchSnapshots,
+            @Value("${webclient.api.github.webhook.secret:}") String secret,
+            @Value("${webclient.api.github.webhook.tracked-ttl:1h}") Duration trackedTtl
+    ) {
+        this.objectMapper = objectMapper;
+        this.repositoriesCache = repositoriesCache;
+        this.branchSnapshots = branchSnapshots;
+        this.secret = secret;
+        this.trackedTtl = trackedTtl;
+    }
+
+    public void handle(String event, String signature, byte[] payload) {
+        verifySignature(signature, payload);
+
+        JsonNode body;
+        try {
+            body = objectMapper.readTree(payload);
+        } catch (IOException ioException) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Webhook payload is not valid JSON");
+        }
+
+        String owner = body.path("repository").path("owner").path("login").asText();
+        String repositoryName = body.path("repository").path("name").asText();
+        log.info("GithubWebhookService::handle {} event for repository {}/{}", event, owner, repositoryName);
+
+        switch (event) {
+            case "push" -> onPush(owner, repositoryName, body);
+            case "create" -> onCreate(owner, repositoryName, body);
+            case "delete" -> onDelete(owner, repositoryName, body);
+            case "repository" -> onRepository(owner, repositoryName, body);
+            // forks are never listed and the forked repository does not change
+            default -> log.info("GithubWebhookService::handle ignoring {} event", event);
+        }
+    }
+
+    private void onPush(String owner, String repositoryName, JsonNode body) {
+        String ref = body.path("ref").asText();
+        if (!ref.startsWith(BRANCH_REF_PREFIX)) {
+            return;
+        }
+        String branchName = ref.substring(BRANCH_REF_PREFIX.length());
+        String headSha = body.path("after").asText();
+        boolean deleted = body.path("deleted").asBoolean(false);
+
+        branchSnapshots.invalidate(owner, repositoryName);
+        updateBranches(owner, repositoryName, branches -> deleted
+                ? withoutBranch(branches, branchName)
+                : withBranch(branches, branchName, headSha));
+    }
+
+    private void onCreate(String owner, String repositoryName, JsonNode body) {
+        if (!"branch".equals(body.path("ref_type").asText())) {
+            return;
+        }
+        String branchName = body.path("ref").asText();
+        branchSnapshots.invalidate(owner, repositoryName);
+
+        // the create event carries no commit, unless the push event of the new branch came first the user is reloaded
+        AtomicBoolean headKnown = new AtomicBoolean(true);
+        updateBranches(owner, repositoryName, branches -> {
+            headKnown.set(branches.stream().anyMatch(branch -> branchName.equals(branch.getName())));
+            return branches;
+        });
+        if (!headKnown.get()) {
+            log.info("GithubWebhookService::onCreate head of branch {} of {}/{} is unknown, dropping the cached user",
+                    branchName, owner, repositoryName);
+            repositoriesCache.invalidate(key(owner));
+        }
+    }
+
+    private void onDelete(String owner, String repositoryName, JsonNode body) {
+        if (!"branch".equals(body.path("ref_type").asText())) {
+            return;
+        }
+        String branchName = body.path("ref").asText();
+
+        branchSnapshots.invalidate(owner, repositoryName);
+        updateBranches(owner, repositoryName, branches -> withoutBranch(branches, branchName));
+    }
+
+    private void onRepository(String owner, String repositoryName, JsonNode body) {
+        String action = body.path("action").asText();
+        switch (action) {
+            case "deleted", "privatized" -> {
+                branchSnapshots.invalidate(owner, repositoryName);
+                update(owner, repositories -> repositories.stream()
+                        .filter(repository -> !repositoryName.equals(repository.getRepositoryName()))
+                        .toList());
+            }
+            case "renamed" -> {
+                String previousName = body.path("changes").path("repository").path("name").path("from").asText();
+                branchSnapshots.invalidate(owner, previousName);
+                update(owner, repositories -> repositories.stream()
+                        .map(repository -> previousName.equals(repository.getRepositoryName())
+                                ? copy(repository, repositoryName, repository.getBranches())
+                                : repository)
+                        .toList());
+            }
+            case "transferred" -> {
+                JsonNode previousOwner = body.path("changes").path("owner").path("from");
+                String previousOwnerLogin = previousOwner.path("user").path("login").asText(
+                        previousOwner.path("organization").path("login").asText());
+                branchSnapshots.invalidate(previousOwnerLogin, repositoryName);
+                update(previousOwnerLogin, repositories -> repositories.stream()
+                        .filter(repository -> !repositoryName.equals(repository.getRepositoryName()))
+                        .toList());
+                repositoriesCache.invalidate(key(owner));
+            }
+            // the new repository is not known yet, e.g. whether it was initialized with a branch
+            case "created", "publicized", "unarchived" -> repositoriesCache.invalidate(key(owner));
+            default -> log.info("GithubWebhookService::onRepository ignoring {} action", action);
+        }
+    }
+
+    private void updateBranches(String owner, String repositoryName, UnaryOperator<List<BranchDTO>> update) {
+        update(owner, repositories -> repositories.stream()
+                .map(repository -> repositoryName.equals(repository.getRepositoryName())
+                        ? copy(repository, repository.getRepositoryName(), update.apply(repository.getBranches()))
+                        : repository)
+                .toList());
+    }
+
+    private void update(String owner, UnaryOperator<List<RepositoryDTO>> update) {
+        if (!repositoriesCache.update(key(owner), update, trackedTtl)) {
+            log.info("GithubWebhookService::update user {} is not cached, nothing to update", owner);
+        }
+    }
+
+    private void verifySignature(String signature, byte[] payload) {
+        if (secret.isEmpty()) {
+            log.error("GithubWebhookService::verifySignature webhook received, but no webhook secret is configured");
+            throw new GithubWebhookSignatureException("Webhooks are not enabled, no webhook secret is configured");
+        }
+        if (signature == null || !signature.startsWith(SIGNATURE_PREFIX)) {
+            log.error("GithubWebhookService::verifySignature webhook received without X-Hub-Signature-256 header");
+            throw new GithubWebhookSignatureException("Missing X-Hub-Signature-256 header");
+        }
+
+        byte[] expected;
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            expected = HexFormat.of().formatHex(mac.doFinal(payload)).getBytes(StandardCharsets.US_ASCII);
+        } catch (GeneralSecurityException generalSecurityException) {
+            throw new IllegalStateException("HmacSHA256 is not available", generalSecurityException);
+        }
+
+        byte[] actual = signature.substring(SIGNATURE_PREFIX.length()).toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            log.error("GithubWebhookService::verifySignature webhook received with invalid signature");
+            throw new GithubWebhookSignatureException("Invalid X-Hub-Signature-256 signature");
+        }
+    }
+
+    private static List<BranchDTO> withBranch(List<BranchDTO> branches, String branchName, String headSha) {
+        BranchDTO updatedBranch = new BranchDTO();
+        updatedBranch.setName(branchName);
+        updatedBranch.setLastCommitSha(headSha);
+
+        List<BranchDTO> updated = new ArrayList<>(branches.size() + 1);
+        boolean replaced = false;
+        for (BranchDTO branch : branches) {
+            boolean sameBranch = branchName.equals(branch.getName());
+            updated.add(sameBranch ? updatedBranch : branch);
+            replaced |= sameBranch;
+        }
+        if (!replaced) {
+            updated.add(updatedBranch);
+        }
+        return updated;
+    }
+
+    private static List<BranchDTO> withoutBranch(List<BranchDTO> branches, String branchName) {
+        return branches.stream()
+                .filter(branch -> !branchName.equals(branch.getName()))
+                .toList();
+    }
+
+    // cached repositories are shared with earlier responses, updates work on copies
+    private static RepositoryDTO copy(RepositoryDTO repository, String repositoryName, List<BranchDTO> branches) {
+        RepositoryDTO copy = new RepositoryDTO();
+        copy.setRepositoryName(repositoryName);
+        copy.setRepositoryOwner(repository.getRepositoryOwner());
+        copy.setFork(repository.isFork());
+        copy.setPushedAt(repository.getPushedAt());
+        copy.setBranches(branches);
+        return copy;
+    }
+
+    private static String key(String owner) {
+        return owner.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,174 @@
+package com.tomdud.githubservice.benchmark;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.tomdud.githubservice.GithubserviceApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Compares the servlet (Tomcat + MVC) and reactive (Netty + WebFlux) runtimes under many concurrent requests against
+ * a slow upstream. Run with {@code ./gradlew runtimeBenchmark}, tune with {@code -Dbenchmark.concurrency},
+ * {@code -Dbenchmark.rounds}, {@code -Dbenchmark.upstreamDelayMs} and {@code -Dbenchmark.repositories}.
+ */
+@Tag("benchmark")
+class RuntimeComparisonBenchmark {
+
+    private static final String USERNAME = "benchmark-user";
+
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 2000);
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 3);
+    private static final int UPSTREAM_DELAY_MS = Integer.getInteger("benchmark.upstreamDelayMs", 200);
+    private static final int REPOSITORIES = Integer.getInteger("benchmark.repositories", 5);
+
+    private static WireMockServer upstream;
+
+    @BeforeAll
+    static void startUpstream() {
+        upstream = new WireMockServer(WireMockConfiguration.options()
+                .dynamicPort()
+                .containerThreads(200)
+                .asynchronousResponseEnabled(true)
+                .asynchronousResponseThreads(50));
+        upstream.start();
+
+        StringBuilder repositories = new StringBuilder("[");
+        for (int i = 0; i < REPOSITORIES; i++) {
+            repositories.append(i == 0 ? "" : ",")
+                    .append("{\"name\":\"repository-").append(i).append("\",\"owner\":{\"login\":\"").append(USERNAME)
+                    .append("\"},\"fork\":false}");
+        }
+        repositories.append("]");
+
+        upstream.stubFor(WireMock.get(WireMock.urlPathEqualTo("/users/" + USERNAME + "/repos"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(200)
+                        .withFixedDelay(UPSTREAM_DELAY_MS)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(repositories.toString())));
+
+        upstream.stubFor(WireMock.get(WireMock.urlPathMatching("/repos/" + USERNAME + "/.*/branches"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(200)
+                        .withFixedDelay(UPSTREAM_DELAY_MS)
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("mocked-github-response-repo-branch-success.json")));
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.stop();
+    }
+
+    @Test
+    void compareServletAndReactiveRuntimes() {
+        Result servlet = run("servlet");
+        Result reactive = run("reactive");
+
+        System.out.printf("%nRuntime comparison: %d concurrent requests x %d rounds, upstream delay %d ms, %d repositories per user%n",
+                CONCURRENCY, ROUNDS, UPSTREAM_DELAY_MS, REPOSITORIES);
+        System.out.printf("%-10s %12s %10s %10s %8s%n", "runtime", "requests/s", "p50 [ms]", "p99 [ms]", "errors");
+        servlet.print();
+        reactive.print();
+    }
+
+    private Result run(String webApplicationType) {
+        // arguments, not default properties, which application.yaml would override
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(GithubserviceApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.main.web-application-type=" + webApplicationType,
+                        "--webclient.api.github.url=" + upstream.baseUrl(),
+                        // measure the runtime, not the caches, the fan-out budget or the connection pool limits
+                        "--webclient.api.github.response-cache.max-entries=0",
+                        "--webclient.api.github.etag-cache.max-entries=0",
+                        "--webclient.api.github.incremental.enabled=false",
+                        "--webclient.api.github.resilience.hedge.enabled=false",
+                        "--webclient.api.github.admission.enabled=false",
+                        "--webclient.api.github.fan-out.max-concurrency-per-request=" + REPOSITORIES,
+                        "--webclient.api.github.fan-out.max-in-flight=100000",
+                        "--webclient.api.github.fan-out.min-in-flight=100000",
+                        "--webclient.api.github.fan-out.latency-threshold=1h",
+                        "--webclient.api.github.transport.pool.max-connections=1000",
+                        "--webclient.api.github.transport.pool.pending-acquire-max-count=-1",
+                        "--webclient.api.github.transport.pool.pending-acquire-timeout=5m",
+                        "--logging.level.com.tomdud.githubservice=WARN"
+                )) {
+
+            String port = context.getEnvironment().getProperty("local.server.port");
+            ConnectionProvider connectionProvider = ConnectionProvider.builder("benchmark")
+                    .maxConnections(CONCURRENCY)
+                    .pendingAcquireMaxCount(-1)
+                    .build();
+            WebClient client = WebClient.builder()
+                    .baseUrl("http://localhost:" + port)
+                    .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
+                    .build();
+
+            // warm up both the server and the client connection pool
+            runRound(client, Math.min(CONCURRENCY, 200));
+
+            long[] latencies = new long[CONCURRENCY * ROUNDS];
+            int errors = 0;
+            long startNanos = System.nanoTime();
+            for (int round = 0; round < ROUNDS; round++) {
+                long[] roundLatencies = runRound(client, CONCURRENCY);
+                for (int i = 0; i < roundLatencies.length; i++) {
+                    latencies[round * CONCURRENCY + i] = Math.abs(roundLatencies[i]);
+                    errors += roundLatencies[i] < 0 ? 1 : 0;
+                }
+            }
+            long elapsedNanos = System.nanoTime() - startNanos;
+
+            connectionProvider.disposeLater().block();
+            Arrays.sort(latencies);
+            return new Result(
+                    webApplicationType,
+                    latencies.length / (elapsedNanos / 1_000_000_000.0),
+                    latencies[latencies.length / 2] / 1_000_000.0,
+                    latencies[(int) Math.ceil(latencies.length * 0.99) - 1] / 1_000_000.0,
+                    errors
+            );
+        }
+    }
+
+    // returns the latency of every request in nanoseconds, negated for failed requests
+    private long[] runRound(WebClient client, int requests) {
+        return Flux.range(0, requests)
+                .flatMap(i -> {
+                    long startNanos = System.nanoTime();
+                    return client.get()
+                            .uri("/api/v1/github/repositories/{username}", USERNAME)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .retrieve()
+                            .toBodilessEntity()
+                            .map(response -> System.nanoTime() - startNanos)
+                            .onErrorResume(error -> Mono.just(-(System.nanoTime() - startNanos)));
+                }, requests)
+                .collectList()
+                .map(list -> list.stream().mapToLong(Long::longValue).toArray())
+                .block(Duration.ofMinutes(5));
+    }
+
+    private record Result(String runtime, double throughput, double p50Millis, double p99Millis, int errors) {
+
+        void print() {
+            System.out.printf("%-10s %12.1f %10.1f %10.1f %8d%n", runtime, throughput, p50Millis, p99Millis, errors);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.tomdud.githubservice.benchmark;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares how fast the fat jar, the AOT processed application with a CDS archive and the native image take traffic:
+ * the time until {@code /actuator/health} is up, the time until the first repositories request is answered, and the
+ * resident memory after it (Linux only). Run with {@code ./gradlew startupBenchmark}, add {@code -Paot} and
+ * {@code -Pnative} to build and include the other variants, tune with {@code -Dbenchmark.rounds}.
+ */
+@Tag("benchmark")
+class StartupComparisonBenchmark {
+
+    private static final String USERNAME = "benchmark-user";
+    private static final String MAIN_CLASS = "com.tomdud.githubservice.GithubserviceApplication";
+
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 5);
+    private static final String FAT_JAR = System.getProperty("benchmark.fatJar");
+    private static final String CDS_DIR = System.getProperty("benchmark.cdsDir");
+    private static final String NATIVE_IMAGE = System.getProperty("benchmark.nativeImage");
+
+    private static final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    private static WireMockServer upstream;
+
+    @BeforeAll
+    static void startUpstream() {
+        upstream = new WireMockServer(WireMockConfiguration.options().dynamicPort());
+        upstream.start();
+
+        upstream.stubFor(WireMock.get(WireMock.urlPathEqualTo("/users/" + USERNAME + "/repos"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("[{\"name\":\"repository\",\"owner\":{\"login\":\"" + USERNAME + "\"},\"fork\":false}]")));
+
+        upstream.stubFor(WireMock.get(WireMock.urlPathMatching("/repos/" + USERNAME + "/.*/branches"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("mocked-github-response-repo-branch-success.json")));
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        upstream.stop();
+    }
+
+    @Test
+    void compareStartup() throws Exception {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<Result> results = new ArrayList<>();
+
+        if (FAT_JAR != null) {
+            results.add(run("fat jar", null, List.of(java, "-jar", FAT_JAR)));
+        }
+        if (CDS_DIR != null) {
+            File cdsDir = new File(CDS_DIR);
+            String classpath = Files.readString(cdsDir.toPath().resolve("classpath.txt")).trim();
+            results.add(run("aot+cds", cdsDir, List.of(java, "-XX:SharedArchiveFile=githubservice.jsa",
+                    "-Dspring.aot.enabled=true", "-cp", classpath, MAIN_CLASS)));
+        }
+        if (NATIVE_IMAGE != null) {
+            results.add(run("native", null, List.of(NATIVE_IMAGE)));
+        }
+
+        System.out.printf("%nStartup comparison: median of %d starts%n", ROUNDS);
+        System.out.printf("%-10s %14s %20s %10s%n", "build", "ready [ms]", "first request [ms]", "RSS [MiB]");
+        results.forEach(Result::print);
+    }
+
+    private Result run(String build, File workingDir, List<String> command) throws Exception {
+        long[] ready = new long[ROUNDS];
+        long[] firstRequest = new long[ROUNDS];
+        long[] rssKib = new long[ROUNDS];
+
+        for (int round = 0; round < ROUNDS; round++) {
+            int port = freePort();
+            List<String> arguments = new ArrayList<>(command);
+            arguments.add("--server.port=" + port);
+            arguments.add("--webclient.api.github.url=" + upstream.baseUrl());
+            arguments.add("--logging.level.root=WARN");
+
+            long startNanos = System.nanoTime();
+            Process process = new ProcessBuilder(arguments)
+                    .directory(workingDir)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            try {
+                awaitOk(process, "http://localhost:" + port + "/actuator/health");
+                ready[round] = System.nanoTime() - startNanos;
+                awaitOk(process, "http://localhost:" + port + "/api/v1/github/repositories/" + USERNAME);
+                firstRequest[round] = System.nanoTime() - startNanos;
+                rssKib[round] = residentSetKib(process.pid());
+            } finally {
+                process.destroy();
+                process.waitFor();
+            }
+        }
+
+        Arrays.sort(ready);
+        Arrays.sort(firstRequest);
+        Arrays.sort(rssKib);
+        return new Result(build, ready[ROUNDS / 2] / 1_000_000.0, firstRequest[ROUNDS / 2] / 1_000_000.0,
+                rssKib[ROUNDS / 2] / 1024.0);
+    }
+
+    private static void awaitOk(Process process, String url) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(5)).build();
+        long giveUpNanos = System.nanoTime() + Duration.ofMinutes(2).toNanos();
+        while (System.nanoTime() < giveUpNanos) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue());
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException ioException) {
+                // not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException(url + " did not answer in time");
+    }
+
+    // VmRSS of the process, -1 where /proc is not available
+    private static long residentSetKib(long pid) throws IOException {
+        Path status = Path.of("/proc", String.valueOf(pid), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        return Files.readAllLines(status).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                .findFirst()
+                .orElse(-1);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private record Result(String build, double readyMillis, double firstRequestMillis, double rssMib) {
+
+        void print() {
+            System.out.printf("%-10s %14.1f %20.1f %10.1f%n", build, readyMillis, firstRequestMillis, rssMib);
+        }
+    }
+}
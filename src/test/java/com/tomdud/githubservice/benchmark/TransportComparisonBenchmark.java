@@ -0,0 +1,225 @@
+package com.tomdud.githubservice.benchmark;
+
+import com.tomdud.githubservice.configuration.GithubWebClientConfiguration;
+import com.tomdud.githubservice.metrics.GithubMetrics;
+import com.tomdud.githubservice.service.GithubBranchSnapshotCache;
+import com.tomdud.githubservice.service.GithubCircuitBreaker;
+import com.tomdud.githubservice.service.GithubEtagCache;
+import com.tomdud.githubservice.service.GithubFanOutScheduler;
+import com.tomdud.githubservice.service.GithubHedgingPolicy;
+import com.tomdud.githubservice.service.GithubRestApiClient;
+import com.tomdud.githubservice.service.GithubRetryPolicy;
+import com.tomdud.githubservice.service.GithubTokenPool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.handler.ssl.SslContextBuilder;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.tls.HandshakeCertificates;
+import okhttp3.tls.HeldCertificate;
+import okio.Buffer;
+import okio.GzipSink;
+import okio.Okio;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.Http11SslContextSpec;
+import reactor.netty.http.Http2SslContextSpec;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Compares GitHub transports (HTTP/1.1, HTTP/1.1 with gzip, HTTP/2 with gzip) against a local TLS stand-in serving the
+ * recorded GitHub payloads. Reports latency of the full repositories pipeline, the number of TLS connections opened
+ * and the bytes received. Run with {@code ./gradlew transportBenchmark}, tune with {@code -Dbenchmark.concurrency},
+ * {@code -Dbenchmark.rounds} and {@code -Dbenchmark.upstreamDelayMs}.
+ */
+@Tag("benchmark")
+class TransportComparisonBenchmark {
+
+    private static final String USERNAME = "benchmark-user";
+
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 200);
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 3);
+    private static final int UPSTREAM_DELAY_MS = Integer.getInteger("benchmark.upstreamDelayMs", 20);
+
+    private static final AtomicInteger connections = new AtomicInteger();
+    private static final AtomicLong bytesSent = new AtomicLong();
+
+    private static HeldCertificate certificate;
+    private static MockWebServer upstream;
+
+    @BeforeAll
+    static void startUpstream() throws IOException {
+        byte[] repositoriesPayload = readRecorded("__files/mocked-github-response-user-repos-success.json");
+        byte[] branchesPayload = readRecorded("__files/mocked-github-response-repo-branch-success.json");
+
+        certificate = new HeldCertificate.Builder().addSubjectAlternativeName("localhost").build();
+        HandshakeCertificates serverCertificates = new HandshakeCertificates.Builder().heldCertificate(certificate).build();
+
+        upstream = new MockWebServer();
+        upstream.useHttps(serverCertificates.sslSocketFactory(), false);
+        upstream.setProtocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1));
+        upstream.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                // the first request of every connection, HTTP/2 streams count per connection as well
+                if (request.getSequenceNumber() == 0) {
+                    connections.incrementAndGet();
+                }
+                String path = request.getPath() != null ? request.getPath() : "";
+                byte[] payload = path.startsWith("/users/") ? repositoriesPayload : branchesPayload;
+                String acceptEncoding = request.getHeader("Accept-Encoding");
+                boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+                Buffer body = gzip ? gzip(payload) : new Buffer().write(payload);
+                bytesSent.addAndGet(body.size());
+                MockResponse response = new MockResponse()
+                        .setHeader("Content-Type", "application/json")
+                        .setHeadersDelay(UPSTREAM_DELAY_MS, TimeUnit.MILLISECONDS)
+                        .setBody(body);
+                return gzip ? response.setHeader("Content-Encoding", "gzip") : response;
+            }
+        });
+        upstream.start();
+    }
+
+    @AfterAll
+    static void stopUpstream() throws IOException {
+        upstream.shutdown();
+    }
+
+    @Test
+    void compareTransports() {
+        Result http11 = run("http1.1", new HttpProtocol[]{HttpProtocol.HTTP11}, false);
+        Result http11Gzip = run("http1.1+gzip", new HttpProtocol[]{HttpProtocol.HTTP11}, true);
+        Result http2Gzip = run("h2+gzip", new HttpProtocol[]{HttpProtocol.HTTP11, HttpProtocol.H2}, true);
+
+        System.out.printf("%nTransport comparison: %d concurrent users x %d rounds over TLS, upstream delay %d ms%n",
+                CONCURRENCY, ROUNDS, UPSTREAM_DELAY_MS);
+        System.out.printf("%-14s %12s %10s %10s %12s %14s %8s%n",
+                "transport", "users/s", "p50 [ms]", "p99 [ms]", "connections", "received [KiB]", "errors");
+        http11.print();
+        http11Gzip.print();
+        http2Gzip.print();
+    }
+
+    private Result run(String transport, HttpProtocol[] protocols, boolean compression) {
+        String url = upstream.url("/").toString().replaceAll("/$", "");
+        GithubWebClientConfiguration configuration = new GithubWebClientConfiguration();
+        HttpClient httpClient = configuration.githubHttpClient(url, protocols, compression,
+                        Duration.ofSeconds(5), Duration.ofSeconds(30), 500, 100, -1, Duration.ofSeconds(45),
+                        Duration.ofSeconds(30), Duration.ofMinutes(5), Duration.ZERO)
+                .secure(spec -> spec.sslContext(protocols.length > 1
+                        ? Http2SslContextSpec.forClient().configure(trustStandIn())
+                        : Http11SslContextSpec.forClient().configure(trustStandIn())));
+
+        // measure the transport, not the caches, the resilience layer or the fan-out budget
+        GithubFanOutScheduler fanOutScheduler = new GithubFanOutScheduler(100, 100_000, 100_000, 0, Duration.ofHours(1));
+        WebClient webClient = configuration.githubWebClient(
+                fanOutScheduler,
+                new GithubEtagCache(0),
+                new GithubCircuitBreaker(false, 50, 20, 50, Duration.ofSeconds(30)),
+                new GithubRetryPolicy(1, Duration.ofMillis(200), Duration.ofSeconds(5)),
+                new GithubHedgingPolicy(false, 95, Duration.ofMillis(100), 0.1),
+                new GithubTokenPool("", new String[0]),
+                new GithubMetrics(new SimpleMeterRegistry()),
+                httpClient,
+                url,
+                "2022-11-28"
+        );
+        GithubRestApiClient githubRestApiClient =
+                new GithubRestApiClient(webClient, fanOutScheduler, new GithubBranchSnapshotCache(false, Duration.ZERO, 0));
+
+        // warm up the client, its connections are counted as well
+        connections.set(0);
+        bytesSent.set(0);
+        runRound(githubRestApiClient, Math.min(CONCURRENCY, 20));
+
+        long[] latencies = new long[CONCURRENCY * ROUNDS];
+        int errors = 0;
+        long startNanos = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            long[] roundLatencies = runRound(githubRestApiClient, CONCURRENCY);
+            for (int i = 0; i < roundLatencies.length; i++) {
+                latencies[round * CONCURRENCY + i] = Math.abs(roundLatencies[i]);
+                errors += roundLatencies[i] < 0 ? 1 : 0;
+            }
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        httpClient.configuration().connectionProvider().disposeLater().block();
+        Arrays.sort(latencies);
+        return new Result(
+                transport,
+                latencies.length / (elapsedNanos / 1_000_000_000.0),
+                latencies[latencies.length / 2] / 1_000_000.0,
+                latencies[(int) Math.ceil(latencies.length * 0.99) - 1] / 1_000_000.0,
+                connections.get(),
+                bytesSent.get() / 1024.0,
+                errors
+        );
+    }
+
+    // returns the latency of every user in nanoseconds, negated for failed users
+    private long[] runRound(GithubRestApiClient githubRestApiClient, int users) {
+        return Flux.range(0, users)
+                .flatMap(i -> {
+                    long startNanos = System.nanoTime();
+                    return githubRestApiClient.getUserRepositories(USERNAME)
+                            .then(Mono.fromSupplier(() -> System.nanoTime() - startNanos))
+                            .onErrorResume(error -> Mono.just(-(System.nanoTime() - startNanos)));
+                }, users)
+                .collectList()
+                .map(list -> list.stream().mapToLong(Long::longValue).toArray())
+                .block(Duration.ofMinutes(5));
+    }
+
+    private static Consumer<SslContextBuilder> trustStandIn() {
+        return builder -> builder.trustManager(certificate.certificate());
+    }
+
+    private static Buffer gzip(byte[] payload) {
+        Buffer compressed = new Buffer();
+        try (var sink = Okio.buffer(new GzipSink(compressed))) {
+            sink.write(payload);
+        } catch (IOException ioException) {
+            throw new IllegalStateException(ioException);
+        }
+        return compressed;
+    }
+
+    private static byte[] readRecorded(String resource) throws IOException {
+        try (InputStream inputStream = TransportComparisonBenchmark.class.getClassLoader().getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new IOException("Missing resource " + resource);
+            }
+            return inputStream.readAllBytes();
+        }
+    }
+
+    private record Result(String transport, double throughput, double p50Millis, double p99Millis,
+                          int connections, double receivedKib, int errors) {
+
+        void print() {
+            System.out.printf("%-14s %12.1f %10.1f %10.1f %12d %14.1f %8d%n",
+                    transport, throughput, p50Millis, p99Millis, connections, receivedKib, errors);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.tomdud.githubservice.codec;
+
+import com.tomdud.githubservice.dto.BranchDTO;
+import com.tomdud.githubservice.dto.RepositoryDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GithubPayloadDecoderTest {
+
+    private final GithubPayloadDecoder decoder = new GithubPayloadDecoder();
+
+    @Test
+    void decodeRepositoriesSplitIntoSmallChunks() {
+        //given
+        Flux<DataBuffer> payload = chunked("__files/mocked-github-response-user-repos-success.json", 7);
+
+        //then
+        StepVerifier.create(decoder.decode(payload, ResolvableType.forClass(RepositoryDTO.class), MediaType.APPLICATION_JSON, Collections.emptyMap()))
+                .assertNext(element -> {
+                    RepositoryDTO repository = (RepositoryDTO) element;
+                    assertEquals("AstrometryDataCompressionProject", repository.getRepositoryName());
+                    assertEquals("tomdud-developer", repository.getRepositoryOwner());
+                    assertEquals("2023-08-21T20:15:34Z", repository.getPushedAt());
+                    assertFalse(repository.isFork());
+                })
+                .assertNext(element -> {
+                    RepositoryDTO repository = (RepositoryDTO) element;
+                    assertEquals("speed-reading-app", repository.getRepositoryName());
+                    assertTrue(repository.isFork());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void decodeBranches() {
+        //given
+        Flux<DataBuffer> payload = chunked("__files/mocked-github-response-repo-branch-success.json", 64);
+
+        //then
+        StepVerifier.create(decoder.decode(payload, ResolvableType.forClass(BranchDTO.class), MediaType.APPLICATION_JSON, Collections.emptyMap()))
+                .assertNext(element -> {
+                    BranchDTO branch = (BranchDTO) element;
+                    assertEquals("RowsColumnsChanger", branch.getName());
+                    assertEquals("44e6d0740fa4d771331cca72c18b5ec2bfe9c181", branch.getLastCommitSha());
+                })
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    private Flux<DataBuffer> chunked(String resource, int chunkSize) {
+        byte[] bytes;
+        try (InputStream inputStream = this.getClass().getClassLoader().getResourceAsStream(resource)) {
+            bytes = inputStream.readAllBytes();
+        } catch (IOException ioException) {
+            throw new RuntimeException("Problem with loading recorded GitHub payload");
+        }
+
+        return Flux.range(0, (bytes.length + chunkSize - 1) / chunkSize)
+                .<DataBuffer>map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(
+                        Arrays.copyOfRange(bytes, chunk * chunkSize, Math.min(bytes.length, (chunk + 1) * chunkSize))));
+    }
+
+}
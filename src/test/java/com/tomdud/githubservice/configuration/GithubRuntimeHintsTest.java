@@ -0,0 +1,27 @@
+package com.tomdud.githubservice.configuration;
+
+import com.tomdud.githubservice.dto.BranchDTO;
+import com.tomdud.githubservice.dto.RepositoryDTO;
+import com.tomdud.githubservice.handler.GithubExceptionHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GithubRuntimeHintsTest {
+
+    @Test
+    void privateUnpackMethodsAndExceptionHandlerAreRegisteredForReflection() {
+        //given
+        RuntimeHints hints = new RuntimeHints();
+
+        //when
+        new GithubRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        //then
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(RepositoryDTO.class, "unpackNestedOwner").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(BranchDTO.class, "unpackNestedCommit").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(GithubExceptionHandler.class, "handleGithubUserNotFoundException").test(hints));
+    }
+}
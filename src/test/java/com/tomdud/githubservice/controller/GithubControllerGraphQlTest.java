@@ -0,0 +1,97 @@
+package com.tomdud.githubservice.controller;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"webclient.api.github.backend=graphql", "token=test-token"}
+)
+class GithubControllerGraphQlTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private WireMockServer wireMockServer;
+
+    private final String CONTROLLER_BASE_URL = "api/v1/github/repositories";
+    private final String TEST_USERNAME = "test-username";
+
+    @BeforeEach
+    public void setup() {
+        wireMockServer = new WireMockServer(8081);
+        wireMockServer.start();
+
+        WireMock.configureFor("localhost", wireMockServer.port());
+
+        WireMock.stubFor(WireMock.post(WireMock.urlPathEqualTo("/graphql"))
+                .withRequestBody(WireMock.matchingJsonPath("$.variables.login", WireMock.equalTo(TEST_USERNAME)))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("mocked-github-graphql-response-user-repos-success.json")));
+
+        WireMock.stubFor(WireMock.post(WireMock.urlPathEqualTo("/graphql"))
+                .withRequestBody(WireMock.matchingJsonPath("$.variables.login", WireMock.equalTo(TEST_USERNAME + "_NOT_EXIST")))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"data\": {\"repositoryOwner\": null}}")));
+    }
+
+    @AfterEach
+    void afterEach() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    void getUserNotForkedRepositoriesInformationInOneUpstreamCall() {
+        //given
+        String expectedResponseJson;
+        try (InputStream inputStream = this.getClass().getClassLoader().getResourceAsStream("github-controller/expected_response.json")) {
+            expectedResponseJson = new String(inputStream.readAllBytes());
+        } catch (IOException ioException) {
+            throw new RuntimeException("Problem with loading expected json response file");
+        }
+
+        //then
+        webTestClient
+                .get()
+                .uri(CONTROLLER_BASE_URL + "/{username}", TEST_USERNAME)
+                .header(HttpHeaders.ACCEPT, APPLICATION_JSON_VALUE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .json(expectedResponseJson);
+
+        WireMock.verify(1, WireMock.postRequestedFor(WireMock.urlPathEqualTo("/graphql")));
+    }
+
+    @Test
+    void testGetUserNotForkedRepositoriesInformationErrorBecauseUserNotFound() {
+        //then
+        webTestClient
+                .get()
+                .uri(CONTROLLER_BASE_URL + "/{username}", TEST_USERNAME + "_NOT_EXIST")
+                .header(HttpHeaders.ACCEPT, APPLICATION_JSON_VALUE)
+                .exchange()
+                .expectStatus().is4xxClientError()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(404)
+                .jsonPath("$.message").isEqualTo("Username with name " + TEST_USERNAME + "_NOT_EXIST" +  " not found on GitHub");
+    }
+
+}
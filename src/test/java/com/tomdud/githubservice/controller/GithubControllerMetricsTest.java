@@ -0,0 +1,80 @@
+package com.tomdud.githubservice.controller;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+
+// metrics are only exported in tests asking for them
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+class GithubControllerMetricsTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private WireMockServer wireMockServer;
+
+    private final String CONTROLLER_BASE_URL = "api/v1/github/repositories";
+    private final String TEST_USERNAME = "test-username";
+
+    @BeforeEach
+    public void setup() {
+        wireMockServer = new WireMockServer(8081);
+        wireMockServer.start();
+
+        WireMock.configureFor("localhost", wireMockServer.port());
+
+        WireMock.stubFor(WireMock.get(WireMock.urlPathEqualTo("/users/" + TEST_USERNAME + "/repos"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("mocked-github-response-user-repos-success.json")));
+
+        WireMock.stubFor(WireMock.get(WireMock.urlPathEqualTo("/repos/" + TEST_USERNAME + "/AstrometryDataCompressionProject/branches"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("mocked-github-response-repo-branch-success.json")));
+    }
+
+    @AfterEach
+    void afterEach() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    void getUserNotForkedRepositoriesInformationIsExposedAsPrometheusMetrics() {
+        //given
+        webTestClient
+                .get()
+                .uri(CONTROLLER_BASE_URL + "/{username}", TEST_USERNAME)
+                .header(HttpHeaders.ACCEPT, APPLICATION_JSON_VALUE)
+                .exchange()
+                .expectStatus().isOk();
+
+        //then
+        webTestClient
+                .get()
+                .uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .value(body -> {
+                    Assertions.assertTrue(body.contains("github_upstream_requests_seconds_count{endpoint=\"user_repos\",method=\"GET\",status=\"200\""));
+                    Assertions.assertTrue(body.contains("github_response_cache_requests_total"));
+                    Assertions.assertTrue(body.contains("github_fanout_limit"));
+                    Assertions.assertFalse(body.contains(TEST_USERNAME));
+                });
+    }
+}
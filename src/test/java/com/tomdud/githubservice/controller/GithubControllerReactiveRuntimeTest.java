@@ -0,0 +1,107 @@
+package com.tomdud.githubservice.controller;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_XML_VALUE;
+
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.main.web-application-type=reactive"
+)
+class GithubControllerReactiveRuntimeTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private WireMockServer wireMockServer;
+
+    private final String CONTROLLER_BASE_URL = "api/v1/github/repositories";
+    private final String TEST_USERNAME = "test-username";
+
+    @BeforeEach
+    public void setup() {
+        wireMockServer = new WireMockServer(8081);
+        wireMockServer.start();
+
+        WireMock.configureFor("localhost", wireMockServer.port());
+
+        WireMock.stubFor(WireMock.get(WireMock.urlPathEqualTo("/users/" + TEST_USERNAME + "/repos"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("mocked-github-response-user-repos-success.json")));
+
+        WireMock.stubFor(WireMock.get(WireMock.urlPathMatching("/users/*/repos"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(404)));
+
+        WireMock.stubFor(WireMock.get(WireMock.urlPathEqualTo("/repos/" + TEST_USERNAME + "/AstrometryDataCompressionProject/branches"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("mocked-github-response-repo-branch-success.json")));
+    }
+
+    @AfterEach
+    void afterEach() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    void getUserNotForkedRepositoriesInformationAsNdjsonStream() {
+        //then
+        // the second response is written from the encoded values of the cached list
+        for (int request = 0; request < 2; request++) {
+            webTestClient
+                    .get()
+                    .uri(CONTROLLER_BASE_URL + "/{username}", TEST_USERNAME)
+                    .header(HttpHeaders.ACCEPT, APPLICATION_NDJSON_VALUE)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                    .expectBodyList(String.class)
+                    .hasSize(1);
+        }
+    }
+
+    @Test
+    void testGetUserNotForkedRepositoriesInformationErrorBecauseUserNotFound() {
+        //then
+        webTestClient
+                .get()
+                .uri(CONTROLLER_BASE_URL + "/{username}", TEST_USERNAME + "_NOT_EXIST")
+                .header(HttpHeaders.ACCEPT, APPLICATION_JSON_VALUE)
+                .exchange()
+                .expectStatus().is4xxClientError()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(404)
+                .jsonPath("$.message").isEqualTo("Username with name " + TEST_USERNAME + "_NOT_EXIST" +  " not found on GitHub");
+    }
+
+    @Test
+    void testGetUserNotForkedRepositoriesInformationErrorBecauseOfBadAcceptHeader() {
+        //then
+        webTestClient
+                .get()
+                .uri(CONTROLLER_BASE_URL + "/" + TEST_USERNAME)
+                .header(HttpHeaders.ACCEPT, APPLICATION_XML_VALUE)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatusCode.valueOf(406))
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(406);
+    }
+
+}
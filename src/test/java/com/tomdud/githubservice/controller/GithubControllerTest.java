@@ -2,7 +2,9 @@ package com.tomdud.githubservice.controller;
 
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.WireMock;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,9 +16,11 @@ import org.springframework.test.web.reactive.server.WebTestClient;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 import static org.springframework.http.MediaType.APPLICATION_XML_VALUE;
 
 
@@ -82,6 +86,168 @@ class GithubControllerTest {
                 .json(expectedResponseJson);
     }
 
+    @Test
+    void getUserNotForkedRepositoriesInformationFollowsPaginationLinks() {
+        //given
+        String pagedUsername = "paged-username";
+        String nextPageUrl = wireMockServer.baseUrl() + "/user/1/repos?per_page=100&page=2";
+
+        WireMock.stubFor(WireMock.get(WireMock.urlPathEqualTo("/users/" + pagedUsername + "/repos"))
+                .withQueryParam("per_page", WireMock.equalTo("100"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withHeader("Link", "<" + nextPageUrl + ">; rel=\"next\", <" + nextPageUrl + ">; rel=\"last\"")
+                        .withBodyFile("mocked-github-response-user-repos-success.json")));
+
+        WireMock.stubFor(WireMock.get(WireMock.urlPathEqualTo("/user/1/repos"))
+                .withQueryParam("page", WireMock.equalTo("2"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("[{\"name\": \"second-page-repository\", \"owner\": {\"login\": \"" + pagedUsername + "\"}, \"fork\": false}]")));
+
+        WireMock.stubFor(WireMock.get(WireMock.urlPathMatching("/repos/" + pagedUsername + "/.*/branches"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("mocked-github-response-repo-branch-success.json")));
+
+        //then
+        webTestClient
+                .get()
+                .uri(CONTROLLER_BASE_URL + "/{username}", pagedUsername)
+                .header(HttpHeaders.ACCEPT, APPLICATION_JSON_VALUE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[*].repositoryName").value(Matchers.containsInAnyOrder("AstrometryDataCompressionProject", "second-page-repository"));
+    }
+
+    @Test
+    void getUserNotForkedRepositoriesInformationAsNdjsonStream() {
+        //then
+        // the second response is written from the encoded values of the cached list
+        for (int request = 0; request < 2; request++) {
+            webTestClient
+                    .get()
+                    .uri(CONTROLLER_BASE_URL + "/{username}", TEST_USERNAME)
+                    .header(HttpHeaders.ACCEPT, APPLICATION_NDJSON_VALUE)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                    .expectBody(String.class)
+                    .value(body -> {
+                        String[] lines = body.trim().split("\n");
+                        Assertions.assertEquals(1, lines.length);
+                        Assertions.assertTrue(lines[0].contains("\"repositoryName\":\"AstrometryDataCompressionProject\""));
+                    });
+        }
+    }
+
+    @Test
+    void getUserNotForkedRepositoriesInformationIsNotModifiedForMatchingEtag() {
+        //given
+        String etag = webTestClient
+                .get()
+                .uri(CONTROLLER_BASE_URL + "/{username}", TEST_USERNAME)
+                .header(HttpHeaders.ACCEPT, APPLICATION_JSON_VALUE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getETag();
+
+        //then
+        Assertions.assertNotNull(etag);
+        Assertions.assertFalse(etag.startsWith("W/"));
+        webTestClient
+                .get()
+                .uri(CONTROLLER_BASE_URL + "/{username}", TEST_USERNAME)
+                .header(HttpHeaders.ACCEPT, APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void getUserNotForkedRepositoriesInformationWithoutBranchesNeedsSingleUpstreamCall() {
+        //then
+        webTestClient
+                .get()
+                .uri(CONTROLLER_BASE_URL + "/{username}?branches=false", TEST_USERNAME)
+                .header(HttpHeaders.ACCEPT, APPLICATION_JSON_VALUE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].repositoryName").isEqualTo("AstrometryDataCompressionProject")
+                .jsonPath("$[0].branches").doesNotExist();
+
+        WireMock.verify(0, WireMock.getRequestedFor(WireMock.urlPathMatching("/repos/.*/branches")));
+    }
+
+    @Test
+    void getUserNotForkedRepositoriesInformationFiltersRepositoriesBeforeRequestingBranches() {
+        //then
+        webTestClient
+                .get()
+                .uri(CONTROLLER_BASE_URL + "/{username}?repositoryFilter=other-*", TEST_USERNAME)
+                .header(HttpHeaders.ACCEPT, APPLICATION_JSON_VALUE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(0);
+
+        WireMock.verify(0, WireMock.getRequestedFor(WireMock.urlPathMatching("/repos/.*/branches")));
+    }
+
+    @Test
+    void getUserNotForkedRepositoriesInformationCapsBranchesPerRepository() {
+        //then
+        webTestClient
+                .get()
+                .uri(CONTROLLER_BASE_URL + "/{username}?repositoryFilter=astrometry&maxBranches=2", TEST_USERNAME)
+                .header(HttpHeaders.ACCEPT, APPLICATION_JSON_VALUE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].branches.length()").isEqualTo(2);
+    }
+
+    @Test
+    void getUserNotForkedRepositoriesInformationRejectsNegativeBranchCap() {
+        //then
+        webTestClient
+                .get()
+                .uri(CONTROLLER_BASE_URL + "/{username}?maxBranches=-1", TEST_USERNAME)
+                .header(HttpHeaders.ACCEPT, APPLICATION_JSON_VALUE)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getUsersNotForkedRepositoriesInformationDeduplicatesUsernamesAndReportsErrorsInline() {
+        //then
+        webTestClient
+                .post()
+                .uri(CONTROLLER_BASE_URL)
+                .header(HttpHeaders.ACCEPT, APPLICATION_JSON_VALUE)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(TEST_USERNAME, TEST_USERNAME.toUpperCase(), TEST_USERNAME + "_NOT_EXIST"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[?(@.username == '" + TEST_USERNAME + "')].repositories[0].repositoryName").isEqualTo("AstrometryDataCompressionProject")
+                .jsonPath("$[?(@.username == '" + TEST_USERNAME + "_NOT_EXIST')].error.status").isEqualTo(404);
+    }
+
     @Test
     void testGetUserNotForkedRepositoriesInformationErrorBecauseUserNotFound() {
         //then
@@ -107,7 +273,8 @@ class GithubControllerTest {
                 .expectStatus().isEqualTo(HttpStatusCode.valueOf(406))
                 .expectBody()
                 .jsonPath("$.status").isEqualTo(406)
-                .jsonPath("$.message").isEqualTo("You provided wrong Accept header, there is a acceptable MIME type:" + MediaType.APPLICATION_JSON_VALUE);
+                .jsonPath("$.message").isEqualTo("You provided wrong Accept header, there is a acceptable MIME type:"
+                        + MediaType.APPLICATION_JSON_VALUE + ", " + MediaType.APPLICATION_NDJSON_VALUE + ", " + MediaType.TEXT_EVENT_STREAM_VALUE);
     }
 
 }
\ No newline at end of file
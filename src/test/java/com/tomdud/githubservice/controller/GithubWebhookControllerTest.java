@@ -0,0 +1,175 @@
+package com.tomdud.githubservice.controller;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"webclient.api.github.webhook.secret=" + GithubWebhookControllerTest.WEBHOOK_SECRET}
+)
+class GithubWebhookControllerTest {
+
+    static final String WEBHOOK_SECRET = "test-webhook-secret";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private WireMockServer wireMockServer;
+
+    private final String CONTROLLER_BASE_URL = "api/v1/github/repositories";
+    private final String WEBHOOK_URL = "api/v1/github/webhooks";
+
+    @BeforeEach
+    public void setup() {
+        wireMockServer = new WireMockServer(8081);
+        wireMockServer.start();
+
+        WireMock.configureFor("localhost", wireMockServer.port());
+
+        WireMock.stubFor(WireMock.get(WireMock.urlPathMatching("/users/[^/]+/repos"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("mocked-github-response-user-repos-success.json")));
+
+        WireMock.stubFor(WireMock.get(WireMock.urlPathMatching("/repos/[^/]+/AstrometryDataCompressionProject/branches"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("mocked-github-response-repo-branch-success.json")));
+    }
+
+    @AfterEach
+    void afterEach() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    void pushEventUpdatesBranchHeadWithoutCallingGithub() {
+        //given
+        String username = "push-event-user";
+        getRepositories(username).expectStatus().isOk();
+
+        //when
+        sendWebhook("push", username, "push-event.json").expectStatus().isNoContent();
+
+        //then
+        getRepositories(username)
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].branches[?(@.name == 'master')].lastCommitSha").isEqualTo("5f1c2a9e7d3b4c8a6e0f9d2b1a3c5e7f9b0d2c4a")
+                .jsonPath("$[0].branches.length()").isEqualTo(4);
+
+        WireMock.verify(1, WireMock.getRequestedFor(WireMock.urlPathEqualTo("/users/" + username + "/repos")));
+    }
+
+    @Test
+    void deleteEventRemovesBranch() {
+        //given
+        String username = "delete-event-user";
+        getRepositories(username).expectStatus().isOk();
+
+        //when
+        sendWebhook("delete", username, "delete-event.json").expectStatus().isNoContent();
+
+        //then
+        getRepositories(username)
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].branches.length()").isEqualTo(3)
+                .jsonPath("$[0].branches[?(@.name == 'exportData')]").isEmpty();
+    }
+
+    @Test
+    void repositoryRenamedEventRenamesRepository() {
+        //given
+        String username = "renamed-event-user";
+        getRepositories(username).expectStatus().isOk();
+
+        //when
+        sendWebhook("repository", username, "repository-renamed-event.json").expectStatus().isNoContent();
+
+        //then
+        getRepositories(username)
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].repositoryName").isEqualTo("astrometry-compression")
+                .jsonPath("$[0].branches.length()").isEqualTo(4);
+    }
+
+    @Test
+    void webhookWithInvalidSignatureIsRejected() {
+        //then
+        webTestClient
+                .post()
+                .uri(WEBHOOK_URL)
+                .header("X-GitHub-Event", "push")
+                .header("X-Hub-Signature-256", "sha256=" + "0".repeat(64))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(loadPayload("push-event.json"))
+                .exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(401)
+                .jsonPath("$.message").isEqualTo("Invalid X-Hub-Signature-256 signature");
+    }
+
+    private WebTestClient.ResponseSpec getRepositories(String username) {
+        return webTestClient
+                .get()
+                .uri(CONTROLLER_BASE_URL + "/{username}", username)
+                .header(HttpHeaders.ACCEPT, APPLICATION_JSON_VALUE)
+                .exchange();
+    }
+
+    // replays a recorded delivery as if it was sent for the repositories of the given user
+    private WebTestClient.ResponseSpec sendWebhook(String event, String username, String payloadFile) {
+        byte[] payload = loadPayload(payloadFile).replace("test-username", username).getBytes(StandardCharsets.UTF_8);
+        return webTestClient
+                .post()
+                .uri(WEBHOOK_URL)
+                .header("X-GitHub-Event", event)
+                .header("X-Hub-Signature-256", "sha256=" + sign(payload))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(payload)
+                .exchange();
+    }
+
+    private String loadPayload(String payloadFile) {
+        try (InputStream inputStream = this.getClass().getClassLoader().getResourceAsStream("github-webhook/" + payloadFile)) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ioException) {
+            throw new RuntimeException("Problem with loading webhook payload file");
+        }
+    }
+
+    private static String sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(WEBHOOK_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(payload));
+        } catch (GeneralSecurityException generalSecurityException) {
+            throw new RuntimeException(generalSecurityException);
+        }
+    }
+
+}
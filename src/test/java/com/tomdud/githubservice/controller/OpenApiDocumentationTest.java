@@ -0,0 +1,56 @@
+package com.tomdud.githubservice.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class OpenApiDocumentationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void apiDocsDescribeRepositoriesEndpoint() {
+        //when
+        WebTestClient.ResponseSpec response = webTestClient
+                .get()
+                .uri("/v3/api-docs")
+                .exchange();
+
+        //then
+        response
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.info.title").isEqualTo("githubservice")
+                .jsonPath("$.paths['/api/v1/github/repositories/{username}'].get").exists();
+    }
+
+    @Test
+    void swaggerUiIsServed() {
+        //given
+        String swaggerUiLocation = webTestClient
+                .get()
+                .uri("/swagger-ui.html")
+                .exchange()
+                .expectStatus().is3xxRedirection()
+                .returnResult(Void.class)
+                .getResponseHeaders()
+                .getFirst(HttpHeaders.LOCATION);
+
+        //when
+        WebTestClient.ResponseSpec response = webTestClient
+                .get()
+                .uri(swaggerUiLocation)
+                .exchange();
+
+        //then
+        response
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_HTML);
+    }
+}
@@ -0,0 +1,91 @@
+package com.tomdud.githubservice.service;
+
+import com.tomdud.githubservice.exception.GithubServiceOverloadedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GithubAdmissionControlTest {
+
+    private final GithubAdmissionControl admissionControl =
+            new GithubAdmissionControl(true, 2, 2, 1, Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofSeconds(1),
+                    new String[]{"known-key"});
+
+    @Test
+    void waitingRequestsOfLessBusyClientsAreAdmittedFirst() {
+        //given
+        Sinks.One<String> firstBusy = Sinks.one();
+        Sinks.One<String> secondBusy = Sinks.one();
+        List<String> admitted = new CopyOnWriteArrayList<>();
+        Disposable running = Mono.when(
+                admissionControl.admit("busy", firstBusy.asMono()),
+                admissionControl.admit("busy", secondBusy.asMono())
+        ).subscribe();
+
+        //when
+        admissionControl.admit("busy", Mono.fromRunnable(() -> admitted.add("busy"))).subscribe();
+        admissionControl.admit("quiet", Mono.fromRunnable(() -> admitted.add("quiet"))).subscribe();
+        firstBusy.tryEmitValue("done");
+
+        //then
+        assertEquals(List.of("quiet", "busy"), admitted);
+        running.dispose();
+    }
+
+    @Test
+    void requestsBeyondTheQueueAreRejected() {
+        //given
+        Sinks.One<String> blocked = Sinks.one();
+        admissionControl.admit("first", blocked.asMono()).subscribe();
+        admissionControl.admit("second", blocked.asMono()).subscribe();
+        admissionControl.admit("first", blocked.asMono()).subscribe();
+
+        //when
+        //then
+        StepVerifier.create(admissionControl.admit("first", Mono.just("over share")))
+                .expectErrorMatches(error -> error instanceof GithubServiceOverloadedException overloaded
+                        && overloaded.getStatus() == HttpStatus.TOO_MANY_REQUESTS)
+                .verify();
+        admissionControl.admit("third", blocked.asMono()).subscribe();
+        StepVerifier.create(admissionControl.admit("fourth", Mono.just("queue full")))
+                .expectErrorMatches(error -> error instanceof GithubServiceOverloadedException overloaded
+                        && overloaded.getStatus() == HttpStatus.SERVICE_UNAVAILABLE)
+                .verify();
+    }
+
+    @Test
+    void onlyKnownApiKeysIdentifyClients() {
+        assertEquals("key:known-key", admissionControl.clientOf("known-key", "10.0.0.1"));
+        assertEquals("address:10.0.0.1", admissionControl.clientOf("made-up-key", "10.0.0.1"));
+        assertEquals("address:10.0.0.1", admissionControl.clientOf(null, "10.0.0.1"));
+    }
+
+    @Test
+    void requestPastItsDeadlineIsCancelledAndReleasesItsSlot() {
+        //given
+        GithubAdmissionControl shortDeadline =
+                new GithubAdmissionControl(true, 1, 0, 0, Duration.ofSeconds(5), Duration.ofMillis(50), Duration.ofSeconds(1), new String[0]);
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        //when
+        //then
+        StepVerifier.create(shortDeadline.admit("client", Mono.never().doOnCancel(() -> cancelled.set(true))))
+                .expectError(GithubServiceOverloadedException.class)
+                .verify(Duration.ofSeconds(5));
+        assertTrue(cancelled.get());
+        StepVerifier.create(shortDeadline.admit("client", Mono.just("next")))
+                .expectNext("next")
+                .verifyComplete();
+    }
+}
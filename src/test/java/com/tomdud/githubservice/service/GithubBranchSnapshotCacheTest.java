@@ -0,0 +1,46 @@
+package com.tomdud.githubservice.service;
+
+import com.tomdud.githubservice.dto.BranchDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GithubBranchSnapshotCacheTest {
+
+    @Test
+    void branchesAreReusedOnlyWhileRepositoryWasNotPushedTo() {
+        //given
+        GithubBranchSnapshotCache snapshots = new GithubBranchSnapshotCache(true, Duration.ofHours(1), 10, System::nanoTime);
+        BranchDTO branch = new BranchDTO();
+        branch.setName("main");
+        branch.setLastCommitSha("44e6d0740fa4d771331cca72c18b5ec2bfe9c181");
+
+        //when
+        snapshots.put("test-username", "repository", "2023-08-21T20:15:34Z", List.of(branch));
+
+        //then
+        assertEquals(List.of(branch), snapshots.get("Test-Username", "repository", "2023-08-21T20:15:34Z"));
+        assertNull(snapshots.get("test-username", "repository", "2023-08-22T08:00:00Z"));
+        assertNull(snapshots.get("test-username", "repository", null));
+    }
+
+    @Test
+    void snapshotsExpireAfterMaxAge() {
+        //given
+        AtomicLong nanoTime = new AtomicLong();
+        GithubBranchSnapshotCache snapshots = new GithubBranchSnapshotCache(true, Duration.ofMinutes(10), 10, nanoTime::get);
+        snapshots.put("test-username", "repository", "2023-08-21T20:15:34Z", List.of());
+
+        //when
+        nanoTime.addAndGet(Duration.ofMinutes(11).toNanos());
+
+        //then
+        assertNull(snapshots.get("test-username", "repository", "2023-08-21T20:15:34Z"));
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.tomdud.githubservice.service;
+
+import com.tomdud.githubservice.exception.GithubUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GithubCircuitBreakerTest {
+
+    private final ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("https://api.github.com/users/test-username/repos")).build();
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+    private final GithubCircuitBreaker circuitBreaker =
+            new GithubCircuitBreaker(true, 10, 4, 50, Duration.ofSeconds(30), clock::get);
+
+    @Test
+    void breakerOpensAfterFailuresAndRejectsCallsWithoutCallingGithub() {
+        //given
+        AtomicInteger calls = new AtomicInteger();
+        ExchangeFunction upstream = clientRequest -> {
+            calls.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.INTERNAL_SERVER_ERROR).build());
+        };
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.circuitBreakerFilter().filter(request, upstream).block();
+        }
+
+        //when
+        //then
+        StepVerifier.create(circuitBreaker.circuitBreakerFilter().filter(request, upstream))
+                .expectError(GithubUnavailableException.class)
+                .verify();
+        assertEquals(GithubCircuitBreaker.State.OPEN, circuitBreaker.state());
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void successfulTrialCallClosesTheBreaker() {
+        //given
+        AtomicInteger status = new AtomicInteger(HttpStatus.INTERNAL_SERVER_ERROR.value());
+        ExchangeFunction upstream = clientRequest -> Mono.just(ClientResponse.create(HttpStatus.valueOf(status.get())).build());
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.circuitBreakerFilter().filter(request, upstream).block();
+        }
+
+        //when
+        clock.addAndGet(Duration.ofSeconds(30).toMillis());
+        status.set(HttpStatus.OK.value());
+        ClientResponse response = circuitBreaker.circuitBreakerFilter().filter(request, upstream).block();
+
+        //then
+        assertEquals(HttpStatus.OK, response.statusCode());
+        assertEquals(GithubCircuitBreaker.State.CLOSED, circuitBreaker.state());
+    }
+
+    @Test
+    void clientErrorsDoNotOpenTheBreaker() {
+        //given
+        ExchangeFunction upstream = clientRequest -> Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND).build());
+
+        //when
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.circuitBreakerFilter().filter(request, upstream).block();
+        }
+
+        //then
+        assertEquals(GithubCircuitBreaker.State.CLOSED, circuitBreaker.state());
+    }
+}
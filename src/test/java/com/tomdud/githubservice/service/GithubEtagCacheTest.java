@@ -0,0 +1,57 @@
+package com.tomdud.githubservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GithubEtagCacheTest {
+
+    private static final String ETAG = "\"abc123\"";
+    private static final String BODY = "[{\"name\":\"master\",\"commit\":{\"sha\":\"0333421b\"}}]";
+
+    @Test
+    void notModifiedResponseIsServedFromCache() {
+        //given
+        GithubEtagCache etagCache = new GithubEtagCache(10);
+        ExchangeFilterFunction filter = etagCache.conditionalRequestFilter();
+        ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("http://localhost/repos/user/repo/branches")).build();
+        List<ClientRequest> sentRequests = new ArrayList<>();
+
+        //when
+        Mono<String> firstResponse = filter.filter(request, sentRequest -> {
+            sentRequests.add(sentRequest);
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.ETAG, ETAG)
+                    .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                    .body(BODY)
+                    .build());
+        }).flatMap(response -> response.bodyToMono(String.class));
+
+        Mono<String> secondResponse = filter.filter(request, sentRequest -> {
+            sentRequests.add(sentRequest);
+            return Mono.just(ClientResponse.create(HttpStatus.NOT_MODIFIED).build());
+        }).flatMap(response -> response.bodyToMono(String.class));
+
+        //then
+        StepVerifier.create(firstResponse).expectNext(BODY).verifyComplete();
+        StepVerifier.create(secondResponse).expectNext(BODY).verifyComplete();
+
+        assertNull(sentRequests.get(0).headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertEquals(ETAG, sentRequests.get(1).headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertEquals(new GithubEtagCache.Stats(1, 1, 1, 1), etagCache.stats());
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.tomdud.githubservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GithubFanOutSchedulerTest {
+
+    @Test
+    void scheduleNeverExceedsGlobalInFlightLimit() {
+        //given
+        GithubFanOutScheduler scheduler = new GithubFanOutScheduler(8, 1, 3, 200, Duration.ofSeconds(2));
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxObservedInFlight = new AtomicInteger();
+
+        Mono<Integer> upstreamCall = Mono.defer(() -> {
+                    maxObservedInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    maxObservedInFlight.accumulateAndGet(scheduler.currentInFlight(), Math::max);
+                    return Mono.delay(Duration.ofMillis(20)).thenReturn(1);
+                })
+                // before the scheduler releases the permit, doFinally would run after the next call started
+                .doOnTerminate(inFlight::decrementAndGet);
+
+        //when
+        Flux<Integer> fanOut = Flux.range(0, 20)
+                .flatMap(i -> scheduler.schedule(upstreamCall), 20);
+
+        //then
+        StepVerifier.create(fanOut)
+                .expectNextCount(20)
+                .verifyComplete();
+        assertTrue(maxObservedInFlight.get() <= 3);
+        assertEquals(0, inFlight.get());
+    }
+
+    @Test
+    void limitShrinksWhenRateLimitIsLowAndRecoversOnHealthyResponses() {
+        //given
+        GithubFanOutScheduler scheduler = new GithubFanOutScheduler(8, 2, 16, 200, Duration.ofSeconds(2));
+        HttpHeaders lowRateLimitHeaders = new HttpHeaders();
+        lowRateLimitHeaders.add("X-RateLimit-Remaining", "10");
+
+        //when
+        scheduler.onResponse(lowRateLimitHeaders, Duration.ofMillis(10).toNanos());
+
+        //then
+        assertEquals(8, scheduler.currentLimit());
+
+        scheduler.onResponse(new HttpHeaders(), Duration.ofMillis(10).toNanos());
+        assertEquals(9, scheduler.currentLimit());
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.tomdud.githubservice.service;
+
+import com.tomdud.githubservice.dto.BranchDTO;
+import com.tomdud.githubservice.dto.RepositoryDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GithubPersistentCacheTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void restartedNodeServesPersistedRepositoriesAndRefreshesThemInBackground() {
+        //given
+        Path path = directory.resolve("github-cache.bin");
+        persistRepositories(path);
+
+        GithubRepositoriesCache restartedCache = newRepositoriesCache();
+        GithubPersistentCache restartedPersistentCache =
+                new GithubPersistentCache(true, path, Duration.ofHours(24), restartedCache, new GithubEtagCache(10));
+        restartedPersistentCache.restoreNow();
+        AtomicInteger loads = new AtomicInteger();
+
+        //then
+        StepVerifier.create(restartedCache.get("test-username", () -> {
+                    loads.incrementAndGet();
+                    return Flux.empty();
+                }))
+                .assertNext(repository -> {
+                    assertEquals("AstrometryDataCompressionProject", repository.getRepositoryName());
+                    assertEquals("tomdud-developer", repository.getRepositoryOwner());
+                    assertEquals("2023-08-21T20:15:34Z", repository.getPushedAt());
+                    assertEquals("44e6d0740fa4d771331cca72c18b5ec2bfe9c181", repository.getBranches().get(0).getLastCommitSha());
+                })
+                .verifyComplete();
+        assertEquals(1, loads.get());
+        assertEquals(1, restartedCache.stats().staleHits());
+        // the refreshed list is written in the background, before the temporary directory is deleted
+        restartedPersistentCache.close();
+    }
+
+    @Test
+    void tornRecordAtTheEndOfTheFileIsCutOff() throws IOException {
+        //given
+        Path path = directory.resolve("github-cache.bin");
+        persistRepositories(path);
+        long validSize = Files.size(path);
+        Files.write(path, new byte[]{1, 0, 13, 't', 'e', 's'}, StandardOpenOption.APPEND);
+
+        //when
+        GithubRepositoriesCache restartedCache = newRepositoriesCache();
+        new GithubPersistentCache(true, path, Duration.ofHours(24), restartedCache, new GithubEtagCache(10)).restoreNow();
+
+        //then
+        assertEquals(1, restartedCache.stats().size());
+        assertEquals(validSize, Files.size(path));
+    }
+
+    private static void persistRepositories(Path path) {
+        GithubRepositoriesCache repositoriesCache = newRepositoriesCache();
+        GithubPersistentCache persistentCache =
+                new GithubPersistentCache(true, path, Duration.ofHours(24), repositoriesCache, new GithubEtagCache(10));
+
+        BranchDTO branch = new BranchDTO();
+        branch.setName("RowsColumnsChanger");
+        branch.setLastCommitSha("44e6d0740fa4d771331cca72c18b5ec2bfe9c181");
+        RepositoryDTO repository = new RepositoryDTO();
+        repository.setRepositoryName("AstrometryDataCompressionProject");
+        repository.setRepositoryOwner("tomdud-developer");
+        repository.setPushedAt("2023-08-21T20:15:34Z");
+        repository.setBranches(List.of(branch));
+
+        StepVerifier.create(repositoriesCache.get("test-username", () -> Flux.just(repository)))
+                .expectNextCount(1)
+                .verifyComplete();
+        // waits for the asynchronous write
+        persistentCache.close();
+    }
+
+    private static GithubRepositoriesCache newRepositoriesCache() {
+        return new GithubRepositoriesCache(Duration.ofSeconds(60), Duration.ofMinutes(5), 10, System::nanoTime);
+    }
+}
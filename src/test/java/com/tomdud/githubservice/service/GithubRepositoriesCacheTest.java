@@ -0,0 +1,193 @@
+package com.tomdud.githubservice.service;
+
+import com.tomdud.githubservice.dto.RepositoryDTO;
+import com.tomdud.githubservice.exception.GithubUnavailableException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GithubRepositoriesCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final GithubRepositoriesCache cache =
+            new GithubRepositoriesCache(Duration.ofSeconds(60), Duration.ofMinutes(5), 10, clock::get);
+
+    @Test
+    void concurrentMissesShareOneUpstreamLoad() {
+        //given
+        AtomicInteger loads = new AtomicInteger();
+        Sinks.Many<RepositoryDTO> upstream = Sinks.many().replay().all();
+
+        //when
+        Flux<RepositoryDTO> first = cache.get("user", () -> {
+            loads.incrementAndGet();
+            return upstream.asFlux();
+        });
+        Flux<RepositoryDTO> second = cache.get("user", () -> {
+            loads.incrementAndGet();
+            return upstream.asFlux();
+        });
+
+        //then
+        StepVerifier.create(Flux.merge(first, second))
+                .then(() -> {
+                    upstream.tryEmitNext(repository("first-repository"));
+                    upstream.tryEmitComplete();
+                })
+                .expectNextCount(2)
+                .verifyComplete();
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().coalesced());
+    }
+
+    @Test
+    void loadIsCancelledWhenItsLastSubscriberCancels() {
+        //given
+        AtomicInteger cancellations = new AtomicInteger();
+        Sinks.Many<RepositoryDTO> upstream = Sinks.many().multicast().onBackpressureBuffer();
+        Flux<RepositoryDTO> first = cache.get("user", () -> upstream.asFlux().doOnCancel(cancellations::incrementAndGet));
+        Flux<RepositoryDTO> second = cache.get("user", () -> upstream.asFlux().doOnCancel(cancellations::incrementAndGet));
+
+        //when
+        StepVerifier.create(Flux.merge(first, second).take(1))
+                .then(() -> upstream.tryEmitNext(repository("first-repository")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        //then
+        assertEquals(1, cancellations.get());
+        assertEquals(0, cache.stats().size());
+        StepVerifier.create(cache.get("user", () -> Flux.just(repository("second-repository"))))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertEquals(2, cache.stats().misses());
+    }
+
+    @Test
+    void derivedValueIsComputedOncePerCachedResponse() {
+        //given
+        AtomicInteger derivations = new AtomicInteger();
+        Function<List<RepositoryDTO>, Integer> derive = repositories -> {
+            derivations.incrementAndGet();
+            return repositories.size();
+        };
+
+        //when
+        StepVerifier.create(cache.getDerived("user", () -> Flux.just(repository("first-repository")), "size", derive))
+                .expectNext(1)
+                .verifyComplete();
+        StepVerifier.create(cache.getDerived("user", () -> Flux.error(new IllegalStateException()), "size", derive))
+                .expectNext(1)
+                .verifyComplete();
+
+        //then
+        assertEquals(1, derivations.get());
+        clock.addAndGet(Duration.ofMinutes(10).toNanos());
+        StepVerifier.create(cache.getDerived("user", () -> Flux.just(repository("first-repository"), repository("second-repository")), "size", derive))
+                .expectNext(2)
+                .verifyComplete();
+        assertEquals(2, derivations.get());
+    }
+
+    @Test
+    void derivedValueIfFreshIsOnlyServedFromFreshCachedResponse() {
+        //given
+        Function<List<RepositoryDTO>, Integer> derive = List::size;
+
+        //when
+        StepVerifier.create(cache.getDerivedIfFresh("user", "size", derive))
+                .verifyComplete();
+        StepVerifier.create(cache.get("user", () -> Flux.just(repository("first-repository"))))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        //then
+        StepVerifier.create(cache.getDerivedIfFresh("user", "size", derive))
+                .expectNext(1)
+                .verifyComplete();
+        clock.addAndGet(Duration.ofSeconds(61).toNanos());
+        StepVerifier.create(cache.getDerivedIfFresh("user", "size", derive))
+                .verifyComplete();
+    }
+
+    @Test
+    void staleEntryIsServedWhileRefreshedInBackground() {
+        //given
+        AtomicInteger loads = new AtomicInteger();
+        StepVerifier.create(cache.get("user", () -> Flux.just(repository("repository-" + loads.incrementAndGet()))))
+                .expectNextMatches(repository -> repository.getRepositoryName().equals("repository-1"))
+                .verifyComplete();
+
+        //when
+        clock.addAndGet(Duration.ofSeconds(61).toNanos());
+
+        //then
+        StepVerifier.create(cache.get("user", () -> Flux.just(repository("repository-" + loads.incrementAndGet()))))
+                .expectNextMatches(repository -> repository.getRepositoryName().equals("repository-1"))
+                .verifyComplete();
+        StepVerifier.create(cache.get("user", () -> Flux.just(repository("repository-" + loads.incrementAndGet()))))
+                .expectNextMatches(repository -> repository.getRepositoryName().equals("repository-2"))
+                .verifyComplete();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void backgroundRefreshOfUpdatedEntryIsFreshOnlyForDefaultTtl() {
+        //given
+        AtomicInteger loads = new AtomicInteger();
+        StepVerifier.create(cache.get("user", () -> Flux.just(repository("repository-" + loads.incrementAndGet()))))
+                .expectNextCount(1)
+                .verifyComplete();
+        cache.update("user", repositories -> repositories, Duration.ofHours(1));
+
+        //when
+        clock.addAndGet(Duration.ofMinutes(61).toNanos());
+        cache.get("user", () -> Flux.just(repository("repository-" + loads.incrementAndGet()))).blockLast();
+        clock.addAndGet(Duration.ofSeconds(61).toNanos());
+        cache.get("user", () -> Flux.just(repository("repository-" + loads.incrementAndGet()))).blockLast();
+
+        //then
+        assertEquals(3, loads.get());
+        assertEquals(2, cache.stats().staleHits());
+    }
+
+    @Test
+    void expiredEntryIsServedWhileGithubIsUnavailable() {
+        //given
+        StepVerifier.create(cache.get("user", () -> Flux.just(repository("repository-1"))))
+                .expectNextCount(1)
+                .verifyComplete();
+        clock.addAndGet(Duration.ofMinutes(10).toNanos());
+
+        //when
+        Flux<RepositoryDTO> fallback = cache.get("user",
+                () -> Flux.error(new GithubUnavailableException("GitHub is unavailable", Instant.now())));
+
+        //then
+        StepVerifier.create(fallback)
+                .expectNextMatches(repository -> repository.getRepositoryName().equals("repository-1"))
+                .verifyComplete();
+        StepVerifier.create(cache.get("user", () -> Flux.just(repository("repository-2"))))
+                .expectNextMatches(repository -> repository.getRepositoryName().equals("repository-2"))
+                .verifyComplete();
+    }
+
+    private static RepositoryDTO repository(String name) {
+        RepositoryDTO repository = new RepositoryDTO();
+        repository.setRepositoryName(name);
+        return repository;
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.tomdud.githubservice.service;
+
+import com.tomdud.githubservice.dto.BranchDTO;
+import com.tomdud.githubservice.dto.RepositoryDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GithubRepositoriesQueryTest {
+
+    @Test
+    void filterWithoutWildcardsMatchesPrefixIgnoringCaseForRepositories() {
+        //given
+        GithubRepositoriesQuery query = new GithubRepositoriesQuery(true, null, "speed", "release");
+
+        //then
+        assertTrue(query.matchesRepository("Speed-reading-app"));
+        assertFalse(query.matchesRepository("reading-speed"));
+        assertTrue(query.matchesBranch("release/1.0"));
+        assertFalse(query.matchesBranch("Release/1.0"));
+    }
+
+    @Test
+    void globFilterMatchesWholeName() {
+        //given
+        GithubRepositoriesQuery query = new GithubRepositoriesQuery(true, null, "*-app", "v?.x");
+
+        //then
+        assertTrue(query.matchesRepository("speed-reading-app"));
+        assertFalse(query.matchesRepository("speed-reading-app-old"));
+        assertTrue(query.matchesBranch("v1.x"));
+        assertFalse(query.matchesBranch("v10.x"));
+    }
+
+    @Test
+    void projectionFiltersAndCapsBranches() {
+        //given
+        GithubRepositoriesQuery query = new GithubRepositoriesQuery(true, 1, null, "feature/*");
+        List<BranchDTO> branches = List.of(branch("main"), branch("feature/a"), branch("feature/b"));
+
+        //then
+        assertEquals(List.of("feature/a"), query.project(branches).stream().map(BranchDTO::getName).toList());
+        assertNull(new GithubRepositoriesQuery(false, null, null, null).project(branches));
+    }
+
+    @Test
+    void repositoriesAreProjectedFromFullResponseWithoutModifyingIt() {
+        //given
+        GithubRepositoriesQuery query = new GithubRepositoriesQuery(true, null, "speed", "feature/*");
+        RepositoryDTO matching = repository("speed-reading-app", branch("main"), branch("feature/a"));
+        List<RepositoryDTO> repositories = List.of(matching, repository("other-app", branch("main")));
+
+        //when
+        List<RepositoryDTO> projected = query.projectRepositories(repositories);
+
+        //then
+        assertEquals(1, projected.size());
+        assertEquals(List.of("feature/a"), projected.get(0).getBranches().stream().map(BranchDTO::getName).toList());
+        assertEquals(2, matching.getBranches().size());
+        assertNull(new GithubRepositoriesQuery(false, null, null, null).projectRepositories(repositories).get(0).getBranches());
+    }
+
+    @Test
+    void onlyTheFullQueryIsCachedUnderTheUsername() {
+        assertEquals("test-username", GithubRepositoriesQuery.ALL.cacheKey("Test-Username"));
+        assertNotEquals("test-username", new GithubRepositoriesQuery(false, null, null, null).cacheKey("Test-Username"));
+    }
+
+    private static RepositoryDTO repository(String name, BranchDTO... branches) {
+        RepositoryDTO repository = new RepositoryDTO();
+        repository.setRepositoryName(name);
+        repository.setBranches(List.of(branches));
+        return repository;
+    }
+
+    private static BranchDTO branch(String name) {
+        BranchDTO branch = new BranchDTO();
+        branch.setName(name);
+        return branch;
+    }
+}
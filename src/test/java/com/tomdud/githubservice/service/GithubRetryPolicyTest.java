@@ -0,0 +1,116 @@
+package com.tomdud.githubservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GithubRetryPolicyTest {
+
+    private final ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("https://api.github.com/users/test-username/repos")).build();
+    private final GithubRetryPolicy retryPolicy = new GithubRetryPolicy(3, Duration.ofMillis(1), Duration.ofSeconds(5));
+
+    @Test
+    void serverErrorIsRetriedUntilItSucceeds() {
+        //given
+        AtomicInteger calls = new AtomicInteger();
+        ExchangeFunction upstream = clientRequest -> Mono.just(calls.incrementAndGet() < 3
+                ? ClientResponse.create(HttpStatus.BAD_GATEWAY).build()
+                : ClientResponse.create(HttpStatus.OK).build());
+
+        //when
+        ClientResponse response = retryPolicy.retryFilter().filter(request, upstream).block();
+
+        //then
+        assertEquals(HttpStatus.OK, response.statusCode());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void lastResponseIsReturnedWhenAttemptsAreExhausted() {
+        //given
+        AtomicInteger calls = new AtomicInteger();
+        ExchangeFunction upstream = clientRequest -> {
+            calls.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+        };
+
+        //when
+        ClientResponse response = retryPolicy.retryFilter().filter(request, upstream).block();
+
+        //then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.statusCode());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void secondaryRateLimitAskingToWaitLongerThanMaxBackoffIsNotRetried() {
+        //given
+        AtomicInteger calls = new AtomicInteger();
+        ExchangeFunction upstream = clientRequest -> {
+            calls.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.FORBIDDEN).header(HttpHeaders.RETRY_AFTER, "60").build());
+        };
+
+        //when
+        ClientResponse response = retryPolicy.retryFilter().filter(request, upstream).block();
+
+        //then
+        assertEquals(HttpStatus.FORBIDDEN, response.statusCode());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void retryIsNotStartedPastTheDeadlineOfTheRequest() {
+        //given
+        AtomicInteger calls = new AtomicInteger();
+        ExchangeFunction upstream = clientRequest -> {
+            calls.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "2").build());
+        };
+
+        //when
+        ClientResponse response = retryPolicy.retryFilter().filter(request, upstream)
+                .contextWrite(Context.of(GithubAdmissionControl.DEADLINE_CONTEXT_KEY, System.nanoTime() + Duration.ofSeconds(1).toNanos()))
+                .block();
+
+        //then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.statusCode());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void clientErrorIsNotRetried() {
+        //given
+        AtomicInteger calls = new AtomicInteger();
+        ExchangeFunction upstream = clientRequest -> {
+            calls.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND).build());
+        };
+
+        //when
+        ClientResponse response = retryPolicy.retryFilter().filter(request, upstream).block();
+
+        //then
+        assertEquals(HttpStatus.NOT_FOUND, response.statusCode());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void retryAfterIsParsedInBothForms() {
+        assertEquals(Duration.ofSeconds(30), GithubRetryPolicy.parseRetryAfter("30"));
+        assertEquals(Duration.ZERO, GithubRetryPolicy.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+        assertEquals(null, GithubRetryPolicy.parseRetryAfter("soon"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.tomdud.githubservice.service;
+
+import com.tomdud.githubservice.exception.GithubRateLimitExceededException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GithubTokenPoolTest {
+
+    private static final long NOW_EPOCH_MILLIS = 1_700_000_000_000L;
+    private static final long RESET_EPOCH_SECONDS = NOW_EPOCH_MILLIS / 1000 + 600;
+
+    private final ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("https://api.github.com/users/test-username/repos")).build();
+
+    @Test
+    void requestsAreSentWithTheTokenWithMostRemainingQuota() {
+        //given
+        GithubTokenPool tokenPool = new GithubTokenPool("", new String[]{"token-a", "token-b"}, () -> NOW_EPOCH_MILLIS);
+        List<String> usedTokens = new ArrayList<>();
+        Map<String, String> remainingByToken = Map.of("token-a", "100", "token-b", "4000");
+        ExchangeFunction upstream = clientRequest -> {
+            String token = clientRequest.headers().getFirst(HttpHeaders.AUTHORIZATION);
+            usedTokens.add(token);
+            return Mono.just(response(HttpStatus.OK, remainingByToken.get(token)));
+        };
+
+        //when
+        for (int i = 0; i < 4; i++) {
+            tokenPool.authorizationFilter().filter(request, upstream).block();
+        }
+
+        //then
+        assertEquals(List.of("token-a", "token-b", "token-b", "token-b"), usedTokens);
+    }
+
+    @Test
+    void rateLimitedTokenIsParkedAndRequestIsRetriedWithAnotherToken() {
+        //given
+        GithubTokenPool tokenPool = new GithubTokenPool("token-a", new String[]{"token-b"}, () -> NOW_EPOCH_MILLIS);
+        List<String> usedTokens = new ArrayList<>();
+        ExchangeFunction upstream = clientRequest -> {
+            String token = clientRequest.headers().getFirst(HttpHeaders.AUTHORIZATION);
+            usedTokens.add(token);
+            return Mono.just("token-a".equals(token) ? response(HttpStatus.FORBIDDEN, "0") : response(HttpStatus.OK, "10"));
+        };
+
+        //when
+        StepVerifier.create(tokenPool.authorizationFilter().filter(request, upstream))
+                .expectNextMatches(response -> response.statusCode() == HttpStatus.OK)
+                .verifyComplete();
+        StepVerifier.create(tokenPool.authorizationFilter().filter(request, upstream))
+                .expectNextMatches(response -> response.statusCode() == HttpStatus.OK)
+                .verifyComplete();
+
+        //then
+        assertEquals(List.of("token-a", "token-b", "token-b"), usedTokens);
+    }
+
+    @Test
+    void requestFailsOnlyWhenWholePoolIsRateLimited() {
+        //given
+        GithubTokenPool tokenPool = new GithubTokenPool("token-a", new String[]{"token-b"}, () -> NOW_EPOCH_MILLIS);
+        ExchangeFunction upstream = clientRequest -> Mono.just(response(HttpStatus.FORBIDDEN, "0"));
+
+        //then
+        StepVerifier.create(tokenPool.authorizationFilter().filter(request, upstream))
+                .expectErrorMatches(error -> error instanceof GithubRateLimitExceededException exception
+                        && exception.getRetryAt().getEpochSecond() == RESET_EPOCH_SECONDS)
+                .verify();
+        StepVerifier.create(tokenPool.authorizationFilter().filter(request, upstream))
+                .expectError(GithubRateLimitExceededException.class)
+                .verify();
+    }
+
+    private static ClientResponse response(HttpStatus status, String remaining) {
+        return ClientResponse.create(status)
+                .header("X-RateLimit-Remaining", remaining)
+                .header("X-RateLimit-Reset", String.valueOf(RESET_EPOCH_SECONDS))
+                .build();
+    }
+}